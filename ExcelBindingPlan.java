@@ -0,0 +1,332 @@
+package com.lvyou.micro.utils.excel;
+
+import com.lvyou.micro.exception.ApiException;
+import io.swagger.annotations.ApiModelProperty;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * 导入对象的字段绑定计划：字段、转换器、setter按类缓存，按表头解析一次得到(列序号, 转换器, setter)数组，
+ * 逐行转换时只做数组遍历，不再反射取字段、读注解、查map。
+ * 转换结果不可变的列按单元格文本缓存转换结果，同一列重复的值(状态、城市、日期等)只转换一次
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-08-18
+ */
+final class ExcelBindingPlan<T> {
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    private static final ClassValue<ClassBinding> CLASS_BINDINGS = new ClassValue<ClassBinding>() {
+        @Override
+        protected ClassBinding computeValue(Class<?> type) {
+            return new ClassBinding(type);
+        }
+    };
+
+    private final MethodHandle constructor;
+    private final int[] columnIndexes;
+    private final String[] columnNames;
+    private final Converter[] converters;
+    private final MethodHandle[] setters;
+    /**
+     * 按绑定顺序的转换结果缓存，结果可变的列为null
+     */
+    private final ValueCache[] valueCaches;
+    /**
+     * 按列序号标记绑定的列
+     */
+    private final boolean[] boundColumns;
+
+    private ExcelBindingPlan(ClassBinding classBinding, List<FieldBinding> boundFields, List<Integer> boundColumns) {
+        int size = boundFields.size();
+        this.constructor = classBinding.constructor;
+        this.columnIndexes = new int[size];
+        this.columnNames = new String[size];
+        this.converters = new Converter[size];
+        this.setters = new MethodHandle[size];
+        this.valueCaches = new ValueCache[size];
+        for (int i = 0; i < size; i++) {
+            FieldBinding fieldBinding = boundFields.get(i);
+            columnIndexes[i] = boundColumns.get(i);
+            columnNames[i] = fieldBinding.columnName;
+            converters[i] = fieldBinding.converter;
+            setters[i] = fieldBinding.setter;
+            valueCaches[i] = fieldBinding.immutable ? new ValueCache() : null;
+        }
+        int columnNum = 0;
+        for (int columnIndex : columnIndexes) {
+            columnNum = Math.max(columnNum, columnIndex + 1);
+        }
+        this.boundColumns = new boolean[columnNum];
+        for (int columnIndex : columnIndexes) {
+            this.boundColumns[columnIndex] = true;
+        }
+    }
+
+    /**
+     * 按表头生成绑定计划，表头中不存在的字段不绑定
+     *
+     * @param clazz  对象类型
+     * @param header 表头
+     * @return ExcelBindingPlan<T>
+     * @author kun.tan
+     * @date 15:40 2022-08-18
+     */
+    static <T> ExcelBindingPlan<T> of(Class<T> clazz, ExcelHeaderResolver header) {
+        ClassBinding classBinding = CLASS_BINDINGS.get(clazz);
+        List<FieldBinding> boundFields = new ArrayList<>();
+        List<Integer> boundColumns = new ArrayList<>();
+        for (FieldBinding fieldBinding : classBinding.fields) {
+            int columnIndex = header.indexOf(fieldBinding.headerNames);
+            if (columnIndex < 0) {
+                continue;
+            }
+            boundFields.add(fieldBinding);
+            boundColumns.add(columnIndex);
+        }
+        return new ExcelBindingPlan<>(classBinding, boundFields, boundColumns);
+    }
+
+    /**
+     * 单行数据转对象
+     *
+     * @param row 行数据，缺少的列按空值转换
+     * @return T 对象
+     */
+    @SuppressWarnings("unchecked")
+    T bind(List<Object> row) {
+        int i = 0;
+        try {
+            T dto = (T) constructor.invokeExact();
+            for (; i < setters.length; i++) {
+                setters[i].invokeExact((Object) dto, convert(i, cellAt(row, i)));
+            }
+            return dto;
+        } catch (Error e) {
+            // invokeExact声明抛出Throwable，OutOfMemoryError等错误原样抛出，只把异常转为导入错误
+            throw e;
+        } catch (Throwable e) {
+            String columnName = i < columnNames.length ? columnNames[i] : "";
+            ExcelInstrumentation.getMetrics().recordConversionFailure(columnName);
+            throw new ApiException(columnName + " " + e.getMessage());
+        }
+    }
+
+    /**
+     * 单行数据转对象，单元格转换失败时记录错误并继续转换后面的列，用于一次检查出整行的全部错误
+     *
+     * @param row    行数据，缺少的列按空值转换
+     * @param errors 转换失败的单元格
+     * @return T 对象，有失败的列时对应字段为默认值
+     */
+    @SuppressWarnings("unchecked")
+    T bind(List<Object> row, CellErrorHandler errors) {
+        T dto;
+        try {
+            dto = (T) constructor.invokeExact();
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new ApiException("创建导入对象失败：" + e.getMessage());
+        }
+        for (int i = 0; i < setters.length; i++) {
+            Object value = cellAt(row, i);
+            try {
+                setters[i].invokeExact((Object) dto, convert(i, value));
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                ExcelInstrumentation.getMetrics().recordConversionFailure(columnNames[i]);
+                errors.onError(columnIndexes[i], columnNames[i], value, e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+            }
+        }
+        return dto;
+    }
+
+    /**
+     * 第i个绑定的单元格，流式解析的行在最后一个非空单元格处结束，之后的列为null
+     */
+    private Object cellAt(List<Object> row, int i) {
+        return columnIndexes[i] < row.size() ? row.get(columnIndexes[i]) : null;
+    }
+
+    /**
+     * 转换第i个绑定的单元格，文本单元格先查该列的转换结果缓存
+     */
+    private Object convert(int i, Object value) {
+        ValueCache valueCache = valueCaches[i];
+        if (valueCache == null || !(value instanceof String)) {
+            return converters[i].convert(value);
+        }
+        return valueCache.convert(converters[i], (String) value);
+    }
+
+    /**
+     * 列是否绑定了字段
+     *
+     * @param columnIndex 列序号
+     * @return boolean
+     */
+    boolean isColumnBound(int columnIndex) {
+        return columnIndex < boundColumns.length && boundColumns[columnIndex];
+    }
+
+    /**
+     * 列名对应的列序号
+     *
+     * @param columnName 列名
+     * @return 列序号，未绑定的列为-1
+     */
+    int getColumnIndex(String columnName) {
+        for (int i = 0; i < columnNames.length; i++) {
+            if (columnNames[i].equals(columnName)) {
+                return columnIndexes[i];
+            }
+        }
+        return -1;
+    }
+
+    private static List<Field> getAllFields(Class<?> clazz) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers) && field.isAnnotationPresent(ApiModelProperty.class)) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * 单元格值转字段值
+     */
+    @FunctionalInterface
+    interface Converter {
+
+        /**
+         * 转换
+         *
+         * @param value 单元格值
+         * @return 字段值
+         */
+        Object convert(Object value);
+    }
+
+    /**
+     * 单元格转换失败回调
+     */
+    @FunctionalInterface
+    interface CellErrorHandler {
+
+        /**
+         * 单元格转换失败
+         *
+         * @param columnIndex 列序号
+         * @param columnName  列名
+         * @param value       单元格值
+         * @param message     错误信息
+         */
+        void onError(int columnIndex, String columnName, Object value, String message);
+    }
+
+    /**
+     * 按类缓存的字段信息
+     */
+    private static class ClassBinding {
+
+        private final MethodHandle constructor;
+        private final List<FieldBinding> fields = new ArrayList<>();
+
+        ClassBinding(Class<?> clazz) {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            try {
+                Constructor<?> ctor = clazz.getDeclaredConstructor();
+                ctor.setAccessible(true);
+                this.constructor = lookup.unreflectConstructor(ctor).asType(CONSTRUCTOR_TYPE);
+                for (Field field : getAllFields(clazz)) {
+                    field.setAccessible(true);
+                    MethodHandle setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+                    ExcelImportField importField = field.getAnnotation(ExcelImportField.class);
+                    String columnName = field.getAnnotation(ApiModelProperty.class).value();
+                    String[] headerNames = ExcelHeaderResolver.normalizeAll(columnName, importField == null ? new String[0] : importField.aliases());
+                    fields.add(new FieldBinding(columnName, headerNames, ExcelCellReader.forType(field.getType()),
+                            ExcelCellReader.isImmutable(field.getType()), setter));
+                }
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new ApiException("导入对象" + clazz.getSimpleName() + "缺少无参构造或字段不可访问");
+            }
+        }
+    }
+
+    private static class FieldBinding {
+
+        private final String columnName;
+        private final String[] headerNames;
+        private final Converter converter;
+        private final boolean immutable;
+        private final MethodHandle setter;
+
+        FieldBinding(String columnName, String[] headerNames, Converter converter, boolean immutable, MethodHandle setter) {
+            this.columnName = columnName;
+            this.headerNames = headerNames;
+            this.converter = converter;
+            this.immutable = immutable;
+            this.setter = setter;
+        }
+    }
+
+    /**
+     * 单列的转换结果缓存，键为单元格文本。并行转换时多个线程共用，缓存满时清空重新开始；
+     * 清空前命中次数不足缓存大小(命中率低于一半)说明该列取值分散(如编号、金额)，停用缓存直接转换
+     */
+    private static class ValueCache {
+
+        private static final int MAX_SIZE = 1024;
+        /**
+         * 超过该长度的文本不缓存
+         */
+        private static final int MAX_KEY_LENGTH = 64;
+        private static final Object NULL = new Object();
+
+        private final Map<String, Object> values = new ConcurrentHashMap<>();
+        private final LongAdder hits = new LongAdder();
+        private volatile boolean disabled;
+
+        Object convert(Converter converter, String text) {
+            if (disabled || text.length() > MAX_KEY_LENGTH) {
+                return converter.convert(text);
+            }
+            Object value = values.get(text);
+            if (value != null) {
+                hits.increment();
+                return value == NULL ? null : value;
+            }
+            // 转换失败时抛出异常，不缓存
+            value = converter.convert(text);
+            if (values.size() >= MAX_SIZE) {
+                disabled = hits.sumThenReset() < MAX_SIZE;
+                values.clear();
+            }
+            if (!disabled) {
+                values.put(text, value == null ? NULL : value);
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.lvyou.micro.utils.excel;
+
+import com.lvyou.micro.exception.ApiException;
+import com.lvyou.micro.utils.LocalDateTimeUtils;
+import com.lvyou.micro.utils.MathUtils;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.NumberToTextConverter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * <p>
+ * 按字段类型读取单元格：数值、日期单元格直接读取getNumericCellValue/getDateCellValue，流式解析的数值单元格为NumericValue，
+ * 同样直接取原值，不再经过toString再解析；文本单元格仍按原规则(MathUtils、LocalDateTimeUtils)解析。
+ * 布尔单元格的文本为TRUE/FALSE，与Cell.toString及流式解析一致
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-08-29
+ */
+final class ExcelCellReader {
+
+    private ExcelCellReader() {
+        //do nothing
+    }
+
+    /**
+     * 根据字段类型获取转换器，行数据中的值可以是Cell、NumericValue、String或已解析的Java值
+     *
+     * @param type 字段类型
+     * @return ExcelBindingPlan.Converter
+     * @author kun.tan
+     * @date 11:05 2022-08-29
+     */
+    static ExcelBindingPlan.Converter forType(Class<?> type) {
+        if (type == String.class) {
+            return ExcelCellReader::readString;
+        } else if (type == BigDecimal.class) {
+            return ExcelCellReader::readBigDecimal;
+        } else if (type == LocalDateTime.class) {
+            return ExcelCellReader::readLocalDateTime;
+        } else if (type == LocalDate.class) {
+            return ExcelCellReader::readLocalDate;
+        } else if (type == Date.class) {
+            return value -> {
+                LocalDateTime time = readLocalDateTime(value);
+                return time == null ? null : LocalDateTimeUtils.convertLocalDateTimeToDate(time);
+            };
+        } else if (type == Integer.class || type == Integer.TYPE) {
+            return orDefault(ExcelCellReader::readInteger, type, 0);
+        } else if (type == Long.class || type == Long.TYPE) {
+            return orDefault(ExcelCellReader::readLong, type, 0L);
+        } else if (type == Double.class || type == Double.TYPE) {
+            return orDefault(ExcelCellReader::readDouble, type, 0D);
+        } else if (type == Boolean.class || type == Boolean.TYPE) {
+            return orDefault(ExcelCellReader::readBoolean, type, Boolean.FALSE);
+        }
+        return ExcelCellReader::readString;
+    }
+
+    /**
+     * 字段类型的转换结果是否不可变，不可变的结果可以按单元格文本缓存后在多行之间共用(Date可变，不缓存)
+     *
+     * @param type 字段类型
+     * @return boolean
+     */
+    static boolean isImmutable(Class<?> type) {
+        return type == String.class || type == BigDecimal.class || type == LocalDateTime.class || type == LocalDate.class
+                || type == Integer.class || type == Integer.TYPE || type == Long.class || type == Long.TYPE
+                || type == Double.class || type == Double.TYPE || type == Boolean.class || type == Boolean.TYPE;
+    }
+
+    /**
+     * 读取为文本，数值不带多余的".0"，日期为yyyy-MM-dd / yyyy-MM-dd HH:mm:ss
+     */
+    static String readString(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (!(value instanceof Cell)) {
+            return value.toString();
+        }
+        Cell cell = (Cell) value;
+        switch (getCellType(cell)) {
+            case STRING:
+                return cell.getStringCellValue();
+            case NUMERIC:
+                if (DateUtil.isCellDateFormatted(cell)) {
+                    return dateToText(cell.getDateCellValue());
+                }
+                return NumberToTextConverter.toText(cell.getNumericCellValue());
+            case BOOLEAN:
+                return booleanToText(cell.getBooleanCellValue());
+            case BLANK:
+                return "";
+            default:
+                return cell.toString();
+        }
+    }
+
+    /**
+     * 整行读取为文本
+     *
+     * @param row 行数据
+     * @return 文本，列序号不变
+     */
+    static List<Object> readStrings(List<Object> row) {
+        List<Object> values = new ArrayList<>(row.size());
+        for (Object value : row) {
+            values.add(readString(value));
+        }
+        return values;
+    }
+
+    /**
+     * 流式解析的数值单元格，保留原值，需要文本时再格式化
+     *
+     * @param value            单元格数值
+     * @param formatIndex      数据格式序号
+     * @param formatString     数据格式
+     * @param use1904Windowing 是否1904日期系统
+     * @return NumericValue
+     */
+    static NumericValue numericValue(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+        return new NumericValue(value, isDateFormat(formatIndex, formatString), use1904Windowing);
+    }
+
+    /**
+     * .xlsx流式解析的数值单元格(1900日期系统)
+     *
+     * @param value 单元格数值
+     * @param date  数据格式是否为日期
+     * @return NumericValue
+     */
+    static NumericValue numericValue(double value, boolean date) {
+        return new NumericValue(value, date, false);
+    }
+
+    /**
+     * 数据格式是否为日期，格式为null时按内置格式
+     *
+     * @param formatIndex  数据格式序号
+     * @param formatString 数据格式
+     * @return boolean
+     */
+    static boolean isDateFormat(int formatIndex, String formatString) {
+        String format = formatString != null ? formatString : BuiltinFormats.getBuiltinFormat(formatIndex);
+        return format != null && DateUtil.isADateFormat(formatIndex, format);
+    }
+
+    /**
+     * 布尔值转文本
+     *
+     * @param value 布尔值
+     * @return TRUE / FALSE
+     */
+    static String booleanToText(boolean value) {
+        return value ? "TRUE" : "FALSE";
+    }
+
+    /**
+     * 日期转文本，零点时只保留日期部分
+     *
+     * @param date 日期
+     * @return yyyy-MM-dd 或 yyyy-MM-dd HH:mm:ss
+     */
+    static String dateToText(Date date) {
+        LocalDateTime time = LocalDateTimeUtils.convertDateToLocalDateTime(date);
+        if (time.toLocalTime().toSecondOfDay() == 0) {
+            return time.toLocalDate().toString();
+        }
+        return LocalDateTimeUtils.formatTime(time);
+    }
+
+    private static BigDecimal readBigDecimal(Object value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        if (isNumericCell(value) || value instanceof NumericValue) {
+            return BigDecimal.valueOf(toDouble(value));
+        }
+        return MathUtils.getBigDecimal(readString(value));
+    }
+
+    private static LocalDateTime readLocalDateTime(Object value) {
+        if (value instanceof LocalDateTime) {
+            return (LocalDateTime) value;
+        }
+        if (isNumericCell(value)) {
+            return LocalDateTimeUtils.convertDateToLocalDateTime(((Cell) value).getDateCellValue());
+        }
+        if (value instanceof NumericValue) {
+            return LocalDateTimeUtils.convertDateToLocalDateTime(((NumericValue) value).toDate());
+        }
+        return LocalDateTimeUtils.convertTimeStrToLocalDateTime(readString(value));
+    }
+
+    private static LocalDate readLocalDate(Object value) {
+        if (value instanceof LocalDate) {
+            return (LocalDate) value;
+        }
+        if (isNumericCell(value)) {
+            return LocalDateTimeUtils.convertDateToLocalDateTime(((Cell) value).getDateCellValue()).toLocalDate();
+        }
+        if (value instanceof NumericValue) {
+            return LocalDateTimeUtils.convertDateToLocalDateTime(((NumericValue) value).toDate()).toLocalDate();
+        }
+        return LocalDateTimeUtils.convertTimeStrToLocalDate(readString(value));
+    }
+
+    private static Integer readInteger(Object value) {
+        if (isNumericCell(value) || value instanceof Number) {
+            double number = toDouble(value);
+            if (number != (int) number) {
+                throw new ApiException("不是整数：" + number);
+            }
+            return (int) number;
+        }
+        String text = readString(value).trim();
+        return text.isEmpty() ? null : new BigDecimal(text).intValueExact();
+    }
+
+    private static Long readLong(Object value) {
+        if (isNumericCell(value) || value instanceof Number) {
+            double number = toDouble(value);
+            if (number != (long) number) {
+                throw new ApiException("不是整数：" + number);
+            }
+            return (long) number;
+        }
+        String text = readString(value).trim();
+        return text.isEmpty() ? null : new BigDecimal(text).longValueExact();
+    }
+
+    private static Double readDouble(Object value) {
+        if (isNumericCell(value) || value instanceof Number) {
+            return toDouble(value);
+        }
+        String text = readString(value).trim();
+        return text.isEmpty() ? null : Double.valueOf(text);
+    }
+
+    private static Boolean readBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Cell && getCellType((Cell) value) == CellType.BOOLEAN) {
+            return ((Cell) value).getBooleanCellValue();
+        }
+        String text = readString(value).trim();
+        return text.isEmpty() ? null : Boolean.valueOf("1".equals(text) || "是".equals(text) || Boolean.parseBoolean(text));
+    }
+
+    private static double toDouble(Object value) {
+        return value instanceof Cell ? ((Cell) value).getNumericCellValue() : ((Number) value).doubleValue();
+    }
+
+    private static boolean isNumericCell(Object value) {
+        return value instanceof Cell && getCellType((Cell) value) == CellType.NUMERIC;
+    }
+
+    private static CellType getCellType(Cell cell) {
+        CellType cellType = cell.getCellType();
+        return cellType == CellType.FORMULA ? cell.getCachedFormulaResultType() : cellType;
+    }
+
+    /**
+     * 空值时基本类型字段取默认值，包装类型字段为null
+     */
+    private static ExcelBindingPlan.Converter orDefault(ExcelBindingPlan.Converter converter, Class<?> type, Object defaultValue) {
+        if (!type.isPrimitive()) {
+            return converter;
+        }
+        return value -> {
+            Object result = converter.convert(value);
+            return result == null ? defaultValue : result;
+        };
+    }
+
+    /**
+     * 流式解析的数值单元格：日期格式的单元格文本为yyyy-MM-dd / yyyy-MM-dd HH:mm:ss，
+     * 其他按原值输出(不带千分位等显示格式)，与Cell的readString一致
+     */
+    static final class NumericValue extends Number {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double value;
+        private final boolean date;
+        private final boolean use1904Windowing;
+
+        private NumericValue(double value, boolean date, boolean use1904Windowing) {
+            this.value = value;
+            this.date = date;
+            this.use1904Windowing = use1904Windowing;
+        }
+
+        /**
+         * 按日期读取，与Cell.getDateCellValue一致
+         */
+        Date toDate() {
+            return DateUtil.getJavaDate(value, use1904Windowing);
+        }
+
+        @Override
+        public int intValue() {
+            return (int) value;
+        }
+
+        @Override
+        public long longValue() {
+            return (long) value;
+        }
+
+        @Override
+        public float floatValue() {
+            return (float) value;
+        }
+
+        @Override
+        public double doubleValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            if (date && DateUtil.isValidExcelDate(value)) {
+                return dateToText(toDate());
+            }
+            return NumberToTextConverter.toText(value);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.lvyou.micro.utils.excel;
+
+/**
+ * <p>
+ * 导出列宽计算策略：决定每个sheet的哪些数据行参与列宽计算，以及单元格文本的显示宽度。
+ * 列宽 = max(@ExcelExportField.width, 参与计算的最大显示宽度 * 260)，最大30000；数值列不参与计算
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-21
+ */
+@FunctionalInterface
+public interface ExcelColumnWidthStrategy {
+
+    /**
+     * 逐行计算(默认)
+     */
+    ExcelColumnWidthStrategy CHAR_WIDTH = rowNum -> true;
+
+    /**
+     * 不计算，使用@ExcelExportField.width
+     */
+    ExcelColumnWidthStrategy FIXED = rowNum -> false;
+
+    /**
+     * 只计算每个sheet的前sampleRows行
+     *
+     * @param sampleRows 参与计算的行数
+     * @return ExcelColumnWidthStrategy
+     */
+    static ExcelColumnWidthStrategy sampling(int sampleRows) {
+        return rowNum -> rowNum <= sampleRows;
+    }
+
+    /**
+     * 是否计算该行
+     *
+     * @param rowNum 数据行号，每个sheet从1开始
+     * @return boolean
+     */
+    boolean isMeasured(int rowNum);
+
+    /**
+     * 单元格文本的显示宽度，单位为半角字符宽度
+     *
+     * @param value 单元格文本
+     * @return 显示宽度
+     */
+    default int measure(String value) {
+        return charWidth(value);
+    }
+
+    /**
+     * 按字符类别计算显示宽度，不分配内存：ASCII等窄字符为1，中日韩文字、全角符号等宽字符为2
+     * (中文与GBK编码字节数一致)，代理对按一个宽字符计
+     *
+     * @param value 文本
+     * @return 显示宽度
+     */
+    static int charWidth(CharSequence value) {
+        int width = 0;
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x1100 || c >= 0xFF61 && c <= 0xFFDC) {
+                // 半角片假名、半角韩文字母为窄字符
+                width++;
+            } else if (!Character.isLowSurrogate(c)) {
+                width += 2;
+            }
+        }
+        return width;
+    }
+}
@@ -0,0 +1,196 @@
+package com.lvyou.micro.utils.excel;
+
+import com.lvyou.micro.constant.ExcelConstants;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * csv流式解析器：从文件通道按块读取字节直接切分字段，只为字段创建字符串，不创建整行字符串。
+ * 支持双引号包裹(字段内可含逗号、换行，""表示一个引号)，行尾为\n或\r\n；
+ * 编码：带BOM按UTF-8，否则首块不是合法UTF-8时按GBK(分隔符、引号、换行在两种编码中都是单字节，可按字节切分)。
+ * 与excel不同，csv没有标题行，不跳过开头的行；空行跳过
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-13
+ */
+final class ExcelCsvReader {
+
+    static final String SHEET_NAME = "csv";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte QUOTE = '"';
+    private static final byte SEPARATOR = ',';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private final ExcelImportOptions options;
+    private final ExcelRowListener listener;
+    private Charset charset;
+    private byte[] field = new byte[256];
+    private int fieldLength;
+    private boolean fieldQuoted;
+    private boolean inQuotes;
+    private boolean quotePending;
+    private boolean skipLf;
+    private List<Object> row = new ArrayList<>();
+    private boolean skippedValue;
+    private int rowNum;
+
+    private ExcelCsvReader(ExcelImportOptions options, ExcelRowListener listener) {
+        this.options = options;
+        this.listener = listener;
+    }
+
+    /**
+     * 逐行解析csv文件
+     *
+     * @param file     csv文件
+     * @param options  行范围选择(sheet选择、sheet开头忽略的行不适用于csv)
+     * @param listener 行回调，每个字段为String
+     * @author kun.tan
+     * @date 10:30 2022-09-13
+     */
+    static void read(File file, ExcelImportOptions options, ExcelRowListener listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            new ExcelCsvReader(options, listener).read(channel);
+        }
+    }
+
+    private void read(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        byte[] bytes = buffer.array();
+        listener.onSheetStart(0, SHEET_NAME);
+        while (!options.isAfterRowRange(rowNum) && channel.read(buffer) != -1) {
+            buffer.flip();
+            int start = 0;
+            if (charset == null) {
+                start = detectCharset(buffer);
+            }
+            parse(bytes, start, buffer.limit());
+            buffer.clear();
+        }
+        if (inQuotes || fieldLength > 0 || fieldQuoted || !row.isEmpty()) {
+            endRow();
+        }
+    }
+
+    private void parse(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = bytes[i];
+            if (inQuotes) {
+                if (!quotePending) {
+                    if (b == QUOTE) {
+                        quotePending = true;
+                    } else {
+                        append(b);
+                    }
+                    continue;
+                }
+                quotePending = false;
+                if (b == QUOTE) {
+                    append(b);
+                    continue;
+                }
+                inQuotes = false;
+            }
+            if (b == LF && skipLf) {
+                skipLf = false;
+                continue;
+            }
+            skipLf = false;
+            if (b == SEPARATOR) {
+                endField();
+            } else if (b == CR) {
+                endRow();
+                skipLf = true;
+            } else if (b == LF) {
+                endRow();
+            } else if (b == QUOTE && fieldLength == 0 && !fieldQuoted) {
+                inQuotes = true;
+                fieldQuoted = true;
+            } else {
+                append(b);
+            }
+        }
+    }
+
+    private void append(byte b) {
+        if (fieldLength == field.length) {
+            field = Arrays.copyOf(field, field.length * 2);
+        }
+        field[fieldLength++] = b;
+    }
+
+    private void endField() {
+        if (fieldLength == 0) {
+            row.add("");
+        } else if (options.isInRowRange(rowNum) && listener.isColumnRequired(row.size())) {
+            row.add(new String(field, 0, fieldLength, charset));
+        } else {
+            // 不需要的字段不创建字符串，仍算作非空行
+            row.add("");
+            skippedValue = true;
+        }
+        fieldLength = 0;
+        fieldQuoted = false;
+    }
+
+    private void endRow() {
+        endField();
+        inQuotes = false;
+        quotePending = false;
+        int currentRowNum = rowNum++;
+        boolean hasValue = skippedValue;
+        skippedValue = false;
+        if (!options.isInRowRange(currentRowNum)) {
+            row.clear();
+            return;
+        }
+        for (int i = 0; i < row.size() && !hasValue; i++) {
+            hasValue = !((String) row.get(i)).isEmpty();
+        }
+        if (!hasValue) {
+            row.clear();
+            return;
+        }
+        List<Object> fullRow = row;
+        row = new ArrayList<>(fullRow.size());
+        listener.onRow(0, currentRowNum, fullRow);
+    }
+
+    /**
+     * 根据首块内容判断编码
+     *
+     * @param buffer 首块内容
+     * @return 内容开始位置(跳过BOM)
+     */
+    private int detectCharset(ByteBuffer buffer) {
+        byte[] bytes = buffer.array();
+        if (buffer.limit() >= 3 && bytes[0] == (byte) 0xEF && bytes[1] == (byte) 0xBB && bytes[2] == (byte) 0xBF) {
+            charset = StandardCharsets.UTF_8;
+            return 3;
+        }
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        // 块末尾不完整的字符按未结束处理，不算错误
+        CoderResult result = decoder.decode(buffer.duplicate(), CharBuffer.allocate(buffer.limit()), false);
+        charset = result.isError() ? Charset.forName(ExcelConstants.CharacterEncoding.GBK) : StandardCharsets.UTF_8;
+        return 0;
+    }
+}
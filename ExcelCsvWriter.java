@@ -0,0 +1,94 @@
+package com.lvyou.micro.utils.excel;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * csv流式导出：列顺序、表头、日期格式与{@link ExcelExportUtil#createWorkbook}一致(@ExcelExportField)，
+ * 每列的格式化器只创建一次(按pattern缓存)；UTF-8带BOM输出，excel打开时中文不乱码
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-13
+ */
+final class ExcelCsvWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final char BOM = '\uFEFF';
+
+    private ExcelCsvWriter() {
+        //do nothing
+    }
+
+    /**
+     * 写出csv，不关闭输出流
+     *
+     * @param outputStream 输出流
+     * @param data         数据
+     * @param clazz        对象类型
+     * @author kun.tan
+     * @date 15:10 2022-09-13
+     */
+    static <T> void write(OutputStream outputStream, List<T> data, Class<T> clazz) throws IOException, IllegalAccessException {
+        List<Field> fieldList = ExcelExportUtil.getExportFields(clazz);
+        Function<Object, String>[] formatters = ExcelFormatterCache.getFormatters(fieldList);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(BOM);
+        for (int i = 0; i < fieldList.size(); i++) {
+            Field field = fieldList.get(i);
+            field.setAccessible(Boolean.TRUE);
+            ExcelExportField annotation = field.getAnnotation(ExcelExportField.class);
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeValue(writer, annotation.value());
+        }
+        writer.write("\r\n");
+        for (T t : data) {
+            for (int i = 0; i < fieldList.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = fieldList.get(i).get(t);
+                if (value != null) {
+                    writeValue(writer, formatters[i].apply(value));
+                }
+            }
+            writer.write("\r\n");
+        }
+        // 只刷新不关闭，输出流由调用方关闭
+        writer.flush();
+    }
+
+    /**
+     * 含逗号、引号、换行时加双引号，引号转义为两个引号
+     */
+    private static void writeValue(Writer writer, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,131 @@
+package com.lvyou.micro.utils.excel;
+
+import java.io.File;
+
+/**
+ * <p>
+ * 后台导出任务状态，由{@link ExcelExportJobService}创建和更新
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-15
+ */
+public class ExcelExportJob {
+
+    /**
+     * 任务状态
+     */
+    public enum Status {
+        /**
+         * 排队中
+         */
+        WAITING,
+        /**
+         * 导出中
+         */
+        RUNNING,
+        /**
+         * 已完成，可以下载
+         */
+        DONE,
+        /**
+         * 失败
+         */
+        FAILED
+    }
+
+    private final String id;
+    private final String fileName;
+    private final long createTime = System.currentTimeMillis();
+    private volatile Status status = Status.WAITING;
+    private volatile int rowsWritten;
+    private volatile int totalRows = -1;
+    private volatile String errorMessage;
+    private volatile long finishTime;
+    private volatile File file;
+
+    ExcelExportJob(String id, String fileName) {
+        this.id = id;
+        this.fileName = fileName;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getCreateTime() {
+        return createTime;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * 已写入的行数
+     */
+    public int getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * 预计总行数，查询完成前为-1
+     */
+    public int getTotalRows() {
+        return totalRows;
+    }
+
+    /**
+     * 进度百分比(0-100)，写入完成后还需输出文件，完成前最多为99
+     */
+    public int getProgress() {
+        if (status == Status.DONE) {
+            return 100;
+        }
+        int total = totalRows;
+        if (total <= 0) {
+            return 0;
+        }
+        return (int) Math.min(99L, rowsWritten * 100L / total);
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public long getFinishTime() {
+        return finishTime;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    void running() {
+        status = Status.RUNNING;
+    }
+
+    void setTotalRows(int totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    void setRowsWritten(int rowsWritten) {
+        this.rowsWritten = rowsWritten;
+    }
+
+    void done(File file) {
+        this.file = file;
+        this.finishTime = System.currentTimeMillis();
+        this.status = Status.DONE;
+    }
+
+    void failed(String errorMessage) {
+        this.errorMessage = errorMessage;
+        this.finishTime = System.currentTimeMillis();
+        this.status = Status.FAILED;
+    }
+}
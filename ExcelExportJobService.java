@@ -0,0 +1,343 @@
+package com.lvyou.micro.utils.excel;
+
+import com.lvyou.micro.constant.ExcelConstants;
+import com.lvyou.micro.exception.ApiException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * 后台导出任务：提交后立即返回任务，在有界线程池中查询数据、流式写入本地文件，
+ * 前端轮询进度，完成后下载(支持Range断点续传)。
+ * 数据量大时用submitByIterator/submitByPage逐行或逐页写入，不把全部数据放进一个List；
+ * 同时执行的任务数为concurrency，排队数为queueCapacity，超出时拒绝提交；
+ * 完成超过保留时间的任务及其文件由后台每分钟清理一次；
+ * 任务状态保存在当前实例内存中，集群部署时下载请求需路由到提交任务的节点
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-15
+ */
+public class ExcelExportJobService {
+
+    private static final String BYTES_PREFIX = "bytes=";
+    private static final long[] UNSATISFIABLE = new long[0];
+    private static final long PURGE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService purger;
+    private final File spoolDir;
+    private final Map<String, ExcelExportJob> jobs = new ConcurrentHashMap<>();
+    private volatile long retentionMillis = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * 导出文件写到java.io.tmpdir
+     *
+     * @param concurrency   同时执行的任务数
+     * @param queueCapacity 排队的任务数
+     */
+    public ExcelExportJobService(int concurrency, int queueCapacity) {
+        this(concurrency, queueCapacity, new File(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * @param concurrency   同时执行的任务数
+     * @param queueCapacity 排队的任务数
+     * @param spoolDir      导出文件目录
+     */
+    public ExcelExportJobService(int concurrency, int queueCapacity, File spoolDir) {
+        this(concurrency, queueCapacity, spoolDir, PURGE_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param concurrency         同时执行的任务数
+     * @param queueCapacity       排队的任务数
+     * @param spoolDir            导出文件目录
+     * @param purgeIntervalMillis 清理过期任务的间隔(毫秒)
+     */
+    ExcelExportJobService(int concurrency, int queueCapacity, File spoolDir, long purgeIntervalMillis) {
+        AtomicInteger threadNum = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread thread = new Thread(r, "excel-export-" + threadNum.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.spoolDir = spoolDir;
+        this.purger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "excel-export-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.purger.scheduleWithFixedDelay(this::purgeExpired, purgeIntervalMillis, purgeIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 任务完成后保留的时间，超时的任务及文件由后台定时删除
+     *
+     * @param retentionMillis 保留时间(毫秒)，默认1小时
+     * @return ExcelExportJobService
+     */
+    public ExcelExportJobService setRetentionMillis(long retentionMillis) {
+        this.retentionMillis = retentionMillis;
+        return this;
+    }
+
+    /**
+     * 提交导出任务，全部数据查询到一个List后写入，进度按总行数计算
+     *
+     * @param fileName      文件名(不带后缀)
+     * @param clazz         对象类型
+     * @param querySupplier 查询数据，在导出线程中执行
+     * @return ExcelExportJob 任务
+     * @author kun.tan
+     * @date 10:20 2022-09-15
+     */
+    public <T> ExcelExportJob submit(String fileName, Class<T> clazz, Supplier<List<T>> querySupplier) {
+        return submit(fileName, (out, job) -> {
+            List<T> data = querySupplier.get();
+            job.setTotalRows(data.size());
+            ExcelExportUtil.exportExcel(out, data.iterator(), clazz, job::setRowsWritten);
+        });
+    }
+
+    /**
+     * 提交导出任务，逐行从迭代器取数据写入，内存中不保留全部数据；总行数未知，进度只有已写入的行数
+     *
+     * @param fileName     文件名(不带后缀)
+     * @param clazz        对象类型
+     * @param dataSupplier 数据迭代器(如数据库游标)，在导出线程中创建和遍历
+     * @return ExcelExportJob 任务
+     * @author kun.tan
+     * @date 14:30 2022-10-10
+     */
+    public <T> ExcelExportJob submitByIterator(String fileName, Class<T> clazz, Supplier<Iterator<T>> dataSupplier) {
+        return submit(fileName, (out, job) -> ExcelExportUtil.exportExcel(out, dataSupplier.get(), clazz, job::setRowsWritten));
+    }
+
+    /**
+     * 提交分页查询导出任务，写入当前页时预取下一页，内存中最多保留两页数据；总行数未知，进度只有已写入的行数
+     *
+     * @param fileName  文件名(不带后缀)
+     * @param clazz     对象类型
+     * @param pageQuery 分页查询，参数为页码(从1开始)，返回空集合表示结束；在预取线程中执行(预取线程池已满时在导出线程执行)
+     * @return ExcelExportJob 任务
+     * @author kun.tan
+     * @date 14:30 2022-10-10
+     */
+    public <T> ExcelExportJob submitByPage(String fileName, Class<T> clazz, Function<Integer, List<T>> pageQuery) {
+        return submit(fileName, (out, job) -> {
+            try (ExcelPageIterator<T> pages = new ExcelPageIterator<>(pageQuery)) {
+                ExcelExportUtil.exportExcel(out, pages, clazz, job::setRowsWritten);
+            }
+        });
+    }
+
+    private ExcelExportJob submit(String fileName, JobWriter writer) {
+        purgeExpired();
+        ExcelExportJob job = new ExcelExportJob(UUID.randomUUID().toString().replace("-", ""), fileName);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, writer));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new ApiException("导出任务过多，请稍后再试");
+        }
+        return job;
+    }
+
+    /**
+     * 查询任务
+     *
+     * @param jobId 任务id
+     * @return ExcelExportJob，不存在或已过期时为null
+     */
+    public ExcelExportJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * 下载导出文件，支持单个区间的Range请求(bytes=start-end / bytes=start- / bytes=-suffix)，
+     * 多区间或格式错误时返回整个文件
+     *
+     * @param jobId    任务id
+     * @param request  请求
+     * @param response 响应
+     * @author kun.tan
+     * @date 10:20 2022-09-15
+     */
+    public void download(String jobId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ExcelExportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ApiException("导出任务不存在或已过期");
+        }
+        if (job.getStatus() != ExcelExportJob.Status.DONE) {
+            throw new ApiException("导出未完成");
+        }
+        File file = job.getFile();
+        long length = file.length();
+        String etag = "\"" + jobId + "\"";
+        String range = request.getHeader("Range");
+        String ifRange = request.getHeader("If-Range");
+        long[] section = range == null || ifRange != null && !ifRange.equals(etag) ? null : parseRange(range, length);
+        if (section == UNSATISFIABLE) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader("Content-Range", "bytes */" + length);
+            return;
+        }
+        long start = section == null ? 0 : section[0];
+        long end = section == null ? length - 1 : section[1];
+        ExcelExportUtil.setDownloadHeaders(response, job.getFileName(), ExcelConstants.ExcelSuffixName.NEW_VERSION);
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("ETag", etag);
+        if (section != null) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+        }
+        response.setContentLengthLong(end - start + 1);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = end - start + 1;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+        response.flushBuffer();
+    }
+
+    /**
+     * 删除任务及导出文件
+     *
+     * @param jobId 任务id
+     */
+    public void remove(String jobId) {
+        ExcelExportJob job = jobs.remove(jobId);
+        if (job != null) {
+            deleteFile(job);
+        }
+    }
+
+    /**
+     * 停止接收新任务并停止定时清理，已提交的任务继续执行
+     */
+    public void shutdown() {
+        executor.shutdown();
+        purger.shutdown();
+    }
+
+    private void run(ExcelExportJob job, JobWriter writer) {
+        job.running();
+        File file = null;
+        try {
+            file = File.createTempFile("excel-export", ExcelConstants.ExcelSuffixName.NEW_VERSION, spoolDir);
+            try (OutputStream out = Files.newOutputStream(file.toPath())) {
+                writer.write(out, job);
+            }
+            job.done(file);
+        } catch (Exception e) {
+            if (file != null) {
+                file.delete();
+            }
+            job.failed(e.getMessage() == null ? "导出失败" : e.getMessage());
+        }
+        // 执行期间已被删除的任务
+        if (!jobs.containsKey(job.getId())) {
+            deleteFile(job);
+        }
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        jobs.values().removeIf(job -> {
+            boolean expired = job.getFinishTime() > 0 && now - job.getFinishTime() > retentionMillis;
+            if (expired) {
+                deleteFile(job);
+            }
+            return expired;
+        });
+    }
+
+    /**
+     * 在导出线程中查询数据并写入导出文件
+     */
+    @FunctionalInterface
+    private interface JobWriter {
+        void write(OutputStream out, ExcelExportJob job) throws IOException;
+    }
+
+    private static void deleteFile(ExcelExportJob job) {
+        File file = job.getFile();
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    /**
+     * 解析Range
+     *
+     * @param range  Range请求头
+     * @param length 文件长度
+     * @return {start, end}；不支持的格式返回null(返回整个文件)；超出文件范围返回UNSATISFIABLE
+     */
+    private static long[] parseRange(String range, long length) {
+        if (!range.startsWith(BYTES_PREFIX) || range.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = range.substring(BYTES_PREFIX.length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            long start;
+            long end;
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix == 0) {
+                    return UNSATISFIABLE;
+                }
+                start = Math.max(0L, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                end = dash == spec.length() - 1 ? length - 1 : Math.min(Long.parseLong(spec.substring(dash + 1)), length - 1);
+            }
+            if (start >= length || start > end) {
+                return UNSATISFIABLE;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.lvyou.micro.utils.excel;
+
+import com.lvyou.micro.exception.ApiException;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * <p>
+ * 多sheet导出的一个数据集：数据超过每个sheet的行数上限时自动拆分为"名称"、"名称(2)"、"名称(3)"...
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-20
+ */
+public final class ExcelExportSheet<T> {
+
+    /**
+     * sheet名称最大长度
+     */
+    private static final int MAX_SHEET_NAME_LENGTH = 31;
+
+    private final String sheetName;
+    private final Iterator<T> data;
+    private final Class<T> clazz;
+    private int sheetRowLimit;
+    private ExcelColumnWidthStrategy widthStrategy = ExcelColumnWidthStrategy.CHAR_WIDTH;
+
+    private ExcelExportSheet(String sheetName, Iterator<T> data, Class<T> clazz) {
+        if (sheetName == null || sheetName.trim().isEmpty()) {
+            throw new ApiException("sheet名称不能为空");
+        }
+        this.sheetName = sheetName.length() > MAX_SHEET_NAME_LENGTH ? sheetName.substring(0, MAX_SHEET_NAME_LENGTH) : sheetName;
+        this.data = data;
+        this.clazz = clazz;
+    }
+
+    /**
+     * @param sheetName sheet名称
+     * @param data      数据
+     * @param clazz     对象类型
+     * @return ExcelExportSheet
+     */
+    public static <T> ExcelExportSheet<T> of(String sheetName, List<T> data, Class<T> clazz) {
+        return new ExcelExportSheet<>(sheetName, data.iterator(), clazz);
+    }
+
+    /**
+     * @param sheetName sheet名称
+     * @param data      数据迭代器，只遍历一次
+     * @param clazz     对象类型
+     * @return ExcelExportSheet
+     */
+    public static <T> ExcelExportSheet<T> of(String sheetName, Iterator<T> data, Class<T> clazz) {
+        return new ExcelExportSheet<>(sheetName, data, clazz);
+    }
+
+    /**
+     * 每个sheet的数据行数上限(不含表头)
+     *
+     * @param sheetRowLimit 行数上限，默认(0)为工作薄上限：xlsx 1048575，xls 65535
+     * @return ExcelExportSheet
+     */
+    public ExcelExportSheet<T> setSheetRowLimit(int sheetRowLimit) {
+        this.sheetRowLimit = sheetRowLimit;
+        return this;
+    }
+
+    /**
+     * 列宽计算策略
+     *
+     * @param widthStrategy 默认逐行计算{@link ExcelColumnWidthStrategy#CHAR_WIDTH}
+     * @return ExcelExportSheet
+     */
+    public ExcelExportSheet<T> setColumnWidthStrategy(ExcelColumnWidthStrategy widthStrategy) {
+        this.widthStrategy = widthStrategy;
+        return this;
+    }
+
+    public String getSheetName() {
+        return sheetName;
+    }
+
+    ExcelSheetWriter<T> newWriter(Workbook workbook, ExcelStyleRegistry styleRegistry) {
+        return new ExcelSheetWriter<>(workbook, styleRegistry, clazz, data, this::rolloverSheetName, sheetRowLimit, widthStrategy);
+    }
+
+    private String rolloverSheetName(int index) {
+        if (index == 1) {
+            return sheetName;
+        }
+        String suffix = "(" + index + ")";
+        int length = Math.min(sheetName.length(), MAX_SHEET_NAME_LENGTH - suffix.length());
+        return sheetName.substring(0, length) + suffix;
+    }
+}
@@ -1,9 +1,9 @@
 package com.lvyou.micro.utils.excel;
 
-import cn.hutool.core.text.CharSequenceUtil;
 import com.lvyou.micro.constant.ExcelConstants;
 import com.lvyou.micro.exception.ApiException;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.http.MediaType;
 import org.springframework.web.context.request.RequestContextHolder;
@@ -11,16 +11,22 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Field;
 import java.net.URLEncoder;
-import java.text.SimpleDateFormat;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.temporal.TemporalAccessor;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * @author kun.tan
@@ -28,6 +34,18 @@ import java.util.stream.Collectors;
  */
 public class ExcelExportUtil {
 
+    /**
+     * 写出缓冲区大小
+     */
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private static final String CSV = ".csv";
+
+    private static final String DEFAULT_SHEET_NAME_PREFIX = "sheet";
+
+    private static final IntConsumer NO_PROGRESS = rows -> {
+    };
+
     private ExcelExportUtil() {
     }
 
@@ -40,123 +58,544 @@ public class ExcelExportUtil {
         }
     }
 
+    /**
+     * 流式导出，内存中只保留最近rowAccessWindowSize行，其余行压缩写入临时文件
+     *
+     * @param fileName 文件名
+     * @param data     数据
+     * @param clazz    对象类型
+     */
+    public static <T> void exportExcelByStream(String fileName, List<T> data, Class<T> clazz) {
+        exportExcelByStream(fileName, data, clazz, SXSSFWorkbook.DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * 流式导出，内存中只保留最近rowAccessWindowSize行，其余行压缩写入临时文件
+     *
+     * @param fileName            文件名
+     * @param data                数据
+     * @param clazz               对象类型
+     * @param rowAccessWindowSize 内存中保留的行数
+     */
+    public static <T> void exportExcelByStream(String fileName, List<T> data, Class<T> clazz, int rowAccessWindowSize) {
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(null, rowAccessWindowSize, true)) {
+            try {
+                createWorkbook(workbook, data, clazz);
+                exportExcelFromWorkbook(workbook, fileName);
+            } finally {
+                // 删除临时文件
+                workbook.dispose();
+            }
+        } catch (Exception e) {
+            throw new ApiException("导出失败");
+        }
+    }
+
+    /**
+     * 导出到指定的response，不依赖当前线程绑定的请求，可在异步servlet、后台线程中调用。
+     * 数据逐行写入SXSSF工作薄(超出窗口的行写入临时文件)，但xlsx的zip只能在全部行写完后生成，
+     * 因此工作薄生成完成后才设置响应头并输出，客户端在此之前收不到数据；
+     * 生成失败时响应尚未提交，抛出的ApiException仍可由调用方转为错误响应
+     *
+     * @param response 响应
+     * @param fileName 文件名
+     * @param data     数据
+     * @param clazz    对象类型
+     * @author kun.tan
+     * @date 14:20 2022-09-09
+     */
+    public static <T> void exportExcel(HttpServletResponse response, String fileName, List<T> data, Class<T> clazz) {
+        exportExcel(() -> {
+            setDownloadHeaders(response, fileName, ExcelConstants.ExcelSuffixName.NEW_VERSION);
+            return response.getOutputStream();
+        }, data.iterator(), clazz, 0, NO_PROGRESS);
+        try {
+            response.flushBuffer();
+        } catch (IOException e) {
+            throw new ApiException("导出失败");
+        }
+    }
+
+    /**
+     * 流式导出到指定输出流，如文件、对象存储上传流，输出流由调用方关闭
+     *
+     * @param outputStream 输出流
+     * @param data         数据
+     * @param clazz        对象类型
+     * @author kun.tan
+     * @date 14:20 2022-09-09
+     */
+    public static <T> void exportExcel(OutputStream outputStream, List<T> data, Class<T> clazz) {
+        exportExcel(outputStream, data.iterator(), clazz, NO_PROGRESS);
+    }
+
+    /**
+     * 流式导出到当前请求的response，逐条从迭代器取数据写入，不需要一次性加载全部数据
+     *
+     * @param fileName 文件名
+     * @param data     数据迭代器，如数据库游标
+     * @param clazz    对象类型
+     * @author kun.tan
+     * @date 11:00 2022-09-19
+     */
+    public static <T> void exportExcel(String fileName, Iterator<T> data, Class<T> clazz) {
+        HttpServletResponse response = getResponse();
+        exportExcel(() -> {
+            setDownloadHeaders(response, fileName, ExcelConstants.ExcelSuffixName.NEW_VERSION);
+            return response.getOutputStream();
+        }, data, clazz, 0, NO_PROGRESS);
+        try {
+            response.getOutputStream().close();
+        } catch (IOException e) {
+            throw new ApiException("导出失败");
+        }
+    }
+
+    /**
+     * 流式导出到当前请求的response，导出完成后关闭数据流
+     *
+     * @param fileName 文件名
+     * @param data     数据流，如MyBatis Cursor、JPA Stream查询结果
+     * @param clazz    对象类型
+     * @author kun.tan
+     * @date 11:00 2022-09-19
+     */
+    public static <T> void exportExcel(String fileName, Stream<T> data, Class<T> clazz) {
+        try (Stream<T> stream = data) {
+            exportExcel(fileName, stream.iterator(), clazz);
+        }
+    }
+
+    /**
+     * 流式导出到指定输出流，逐条从迭代器取数据写入，输出流由调用方关闭
+     *
+     * @param outputStream 输出流
+     * @param data         数据迭代器
+     * @param clazz        对象类型
+     * @author kun.tan
+     * @date 11:00 2022-09-19
+     */
+    public static <T> void exportExcel(OutputStream outputStream, Iterator<T> data, Class<T> clazz) {
+        exportExcel(outputStream, data, clazz, NO_PROGRESS);
+    }
+
+    /**
+     * 分页查询导出到当前请求的response，写入当前页时预取下一页，内存中最多保留两页数据
+     *
+     * @param fileName  文件名
+     * @param pageQuery 分页查询，参数为页码(从1开始)，返回空集合表示结束；在预取线程中执行(预取线程池已满时在当前线程执行)
+     * @param clazz     对象类型
+     * @author kun.tan
+     * @date 11:00 2022-09-19
+     */
+    public static <T> void exportExcelByPage(String fileName, Function<Integer, List<T>> pageQuery, Class<T> clazz) {
+        try (ExcelPageIterator<T> pages = new ExcelPageIterator<>(pageQuery)) {
+            exportExcel(fileName, pages, clazz);
+        }
+    }
+
+    /**
+     * 分页查询导出到指定输出流，写入当前页时在executor中预取下一页，输出流由调用方关闭
+     *
+     * @param outputStream 输出流
+     * @param pageQuery    分页查询，参数为页码(从1开始)，返回空集合表示结束
+     * @param clazz        对象类型
+     * @param executor     预取线程池
+     * @author kun.tan
+     * @date 11:00 2022-09-19
+     */
+    public static <T> void exportExcelByPage(OutputStream outputStream, Function<Integer, List<T>> pageQuery, Class<T> clazz,
+                                             Executor executor) {
+        try (ExcelPageIterator<T> pages = new ExcelPageIterator<>(pageQuery, executor)) {
+            exportExcel(outputStream, pages, clazz, NO_PROGRESS);
+        }
+    }
+
+    /**
+     * 流式导出到指定输出流，每写入一行回调已写入的行数
+     *
+     * @param outputStream 输出流
+     * @param data         数据迭代器
+     * @param clazz        对象类型
+     * @param progress     进度回调
+     */
+    static <T> void exportExcel(OutputStream outputStream, Iterator<T> data, Class<T> clazz, IntConsumer progress) {
+        exportExcel(outputStream, data, clazz, 0, progress);
+    }
+
+    /**
+     * 流式导出到指定输出流，每个sheet超过sheetRowLimit行时新建sheet继续写入，输出流由调用方关闭
+     *
+     * @param outputStream  输出流
+     * @param data          数据迭代器
+     * @param clazz         对象类型
+     * @param sheetRowLimit 每个sheet的数据行数上限(不含表头)，0表示1048575
+     * @author kun.tan
+     * @date 10:30 2022-09-20
+     */
+    public static <T> void exportExcel(OutputStream outputStream, Iterator<T> data, Class<T> clazz, int sheetRowLimit) {
+        exportExcel(outputStream, data, clazz, sheetRowLimit, NO_PROGRESS);
+    }
+
+    private static <T> void exportExcel(OutputStream outputStream, Iterator<T> data, Class<T> clazz, int sheetRowLimit,
+                                        IntConsumer progress) {
+        exportExcel(() -> outputStream, data, clazz, sheetRowLimit, progress);
+    }
+
+    /**
+     * 数据写入SXSSF工作薄(超出窗口的行写入临时文件)，全部写完后才打开输出流输出
+     */
+    private static <T> void exportExcel(OutputStreamOpener opener, Iterator<T> data, Class<T> clazz, int sheetRowLimit,
+                                        IntConsumer progress) {
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(null, SXSSFWorkbook.DEFAULT_WINDOW_SIZE, true)) {
+            try {
+                createWorkbook(workbook, data, clazz, sheetRowLimit, ExcelColumnWidthStrategy.CHAR_WIDTH, progress);
+                writeWorkbook(workbook, opener.open());
+            } finally {
+                // 删除临时文件
+                workbook.dispose();
+            }
+        } catch (ApiException e) {
+            // 数据查询抛出的业务异常原样抛出
+            throw e;
+        } catch (Exception e) {
+            throw new ApiException("导出失败");
+        }
+    }
+
+    /**
+     * 多个数据集导出到当前请求的response，每个数据集写入一个或多个sheet
+     *
+     * @param fileName 文件名
+     * @param sheets   数据集，如ExcelExportSheet.of("订单", orders, OrderExportVO.class)
+     * @author kun.tan
+     * @date 10:30 2022-09-20
+     */
+    public static void exportSheets(String fileName, List<ExcelExportSheet<?>> sheets) {
+        HttpServletResponse response = getResponse();
+        try {
+            setDownloadHeaders(response, fileName, ExcelConstants.ExcelSuffixName.NEW_VERSION);
+            ServletOutputStream outputStream = response.getOutputStream();
+            exportSheets(outputStream, sheets, null);
+            outputStream.close();
+        } catch (IOException e) {
+            throw new ApiException("导出失败");
+        }
+    }
+
+    /**
+     * 多个数据集流式导出到指定输出流，逐个数据集写入，输出流由调用方关闭
+     *
+     * @param outputStream 输出流
+     * @param sheets       数据集
+     * @author kun.tan
+     * @date 10:30 2022-09-20
+     */
+    public static void exportSheets(OutputStream outputStream, List<ExcelExportSheet<?>> sheets) {
+        exportSheets(outputStream, sheets, null);
+    }
+
+    /**
+     * 多个数据集流式导出到指定输出流，各数据集在executor中同时写入各自的sheet，输出流由调用方关闭。
+     * 每个数据集的数据迭代器只在一个线程中遍历
+     *
+     * @param outputStream 输出流
+     * @param sheets       数据集
+     * @param executor     写入线程池，为null时逐个写入
+     * @author kun.tan
+     * @date 10:30 2022-09-20
+     */
+    public static void exportSheets(OutputStream outputStream, List<ExcelExportSheet<?>> sheets, Executor executor) {
+        // 不使用共享字符串表，各sheet的行只写入各自的临时文件，可以并行
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(null, SXSSFWorkbook.DEFAULT_WINDOW_SIZE, true, false)) {
+            try {
+                createWorkbook(workbook, sheets, executor);
+                writeWorkbook(workbook, outputStream);
+            } finally {
+                // 删除临时文件
+                workbook.dispose();
+            }
+        } catch (ApiException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ApiException("导出失败");
+        }
+    }
+
+    /**
+     * 流式导出到指定通道，通道由调用方关闭
+     *
+     * @param channel 输出通道
+     * @param data    数据
+     * @param clazz   对象类型
+     * @author kun.tan
+     * @date 14:20 2022-09-09
+     */
+    public static <T> void exportExcel(WritableByteChannel channel, List<T> data, Class<T> clazz) {
+        exportExcel(Channels.newOutputStream(channel), data, clazz);
+    }
+
+    /**
+     * 导出csv到当前请求的response，列顺序、表头、日期格式与excel导出一致
+     *
+     * @param fileName 文件名
+     * @param data     数据
+     * @param clazz    对象类型
+     * @author kun.tan
+     * @date 15:10 2022-09-13
+     */
+    public static <T> void exportCsv(String fileName, List<T> data, Class<T> clazz) {
+        HttpServletResponse response = getResponse();
+        try {
+            setDownloadHeaders(response, fileName, CSV);
+            ServletOutputStream outputStream = response.getOutputStream();
+            exportCsv(outputStream, data, clazz);
+            outputStream.close();
+        } catch (IOException e) {
+            throw new ApiException("导出失败");
+        }
+    }
+
+    /**
+     * 导出csv到指定输出流，输出流由调用方关闭
+     *
+     * @param outputStream 输出流
+     * @param data         数据
+     * @param clazz        对象类型
+     * @author kun.tan
+     * @date 15:10 2022-09-13
+     */
+    public static <T> void exportCsv(OutputStream outputStream, List<T> data, Class<T> clazz) {
+        long start = ExcelInstrumentation.isEnabled() ? System.nanoTime() : 0L;
+        CountingOutputStream countingStream = new CountingOutputStream(outputStream);
+        try {
+            ExcelCsvWriter.write(countingStream, data, clazz);
+        } catch (IOException | IllegalAccessException e) {
+            throw new ApiException("导出失败");
+        }
+        if (start != 0L) {
+            ExcelInstrumentation.getMetrics().recordExportWrite(countingStream.count, System.nanoTime() - start);
+        }
+    }
+
     public static void exportExcelFromWorkbook(Workbook workbook, String fileName) {
-        HttpServletResponse response = Optional.ofNullable(Optional.ofNullable(
-                (ServletRequestAttributes) RequestContextHolder.getRequestAttributes())
-                .orElseThrow(() -> new ApiException("获取response失败")).getResponse())
-                .orElseThrow(() -> new ApiException("获取response失败"));
+        HttpServletResponse response = getResponse();
         try {
-            response.setHeader("Content-Disposition", "attachment; filename=" +
-                    URLEncoder.encode(fileName + ExcelConstants.ExcelSuffixName.NEW_VERSION, ExcelConstants.CharacterEncoding.CODE_UTF8));
-            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
-            response.setCharacterEncoding(ExcelConstants.CharacterEncoding.CODE_UTF8);
+            setDownloadHeaders(response, fileName, ExcelConstants.ExcelSuffixName.NEW_VERSION);
             ServletOutputStream outputStream = response.getOutputStream();
-            workbook.write(outputStream);
+            writeWorkbook(workbook, outputStream);
             outputStream.close();
         } catch (IOException e) {
             throw new ApiException("导出失败");
         }
     }
 
+    private static HttpServletResponse getResponse() {
+        return Optional.ofNullable(Optional.ofNullable(
+                (ServletRequestAttributes) RequestContextHolder.getRequestAttributes())
+                .orElseThrow(() -> new ApiException("获取response失败")).getResponse())
+                .orElseThrow(() -> new ApiException("获取response失败"));
+    }
+
+    static void setDownloadHeaders(HttpServletResponse response, String fileName, String suffix) throws IOException {
+        response.setHeader("Content-Disposition", "attachment; filename=" +
+                URLEncoder.encode(fileName + suffix, ExcelConstants.CharacterEncoding.CODE_UTF8));
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setCharacterEncoding(ExcelConstants.CharacterEncoding.CODE_UTF8);
+    }
+
+    /**
+     * 工作薄写入输出流(经缓冲，避免压缩输出的小块直接写到通道)，不关闭输出流
+     *
+     * @param workbook     工作薄
+     * @param outputStream 输出流
+     */
+    private static void writeWorkbook(Workbook workbook, OutputStream outputStream) throws IOException {
+        long start = ExcelInstrumentation.isEnabled() ? System.nanoTime() : 0L;
+        CountingOutputStream countingStream = new CountingOutputStream(new BufferedOutputStream(outputStream, WRITE_BUFFER_SIZE));
+        workbook.write(countingStream);
+        countingStream.flush();
+        if (start != 0L) {
+            ExcelInstrumentation.getMetrics().recordExportWrite(countingStream.count, System.nanoTime() - start);
+        }
+    }
+
     public static <T> void createWorkbook(Workbook workbook, List<T> data, Class<T> clazz) throws IllegalAccessException {
-        // 创建工作表对象
-        Sheet sheet = workbook.createSheet("sheet1");
+        createWorkbook(workbook, data.iterator(), clazz, 0, ExcelColumnWidthStrategy.CHAR_WIDTH, NO_PROGRESS);
+    }
 
-        Field[] fields = clazz.getDeclaredFields();
-        List<Field> fieldList = Arrays.stream(fields)
-                .filter(field -> field.isAnnotationPresent(ExcelExportField.class))
-                .sorted(Comparator.comparing(field -> field.getAnnotation(ExcelExportField.class).sort()))
-                .collect(Collectors.toList());
+    /**
+     * 数据写入工作薄，按指定策略计算列宽
+     *
+     * @param workbook      工作薄
+     * @param data          数据
+     * @param clazz         对象类型
+     * @param widthStrategy 列宽计算策略，如只计算前100行{@code ExcelColumnWidthStrategy.sampling(100)}
+     * @author kun.tan
+     * @date 9:30 2022-09-21
+     */
+    public static <T> void createWorkbook(Workbook workbook, List<T> data, Class<T> clazz,
+                                          ExcelColumnWidthStrategy widthStrategy) throws IllegalAccessException {
+        createWorkbook(workbook, data.iterator(), clazz, 0, widthStrategy, NO_PROGRESS);
+    }
 
-        int[] columnWidthArray = new int[fieldList.size()];
-
-        // 创建表头
-        Row rowHeader = sheet.createRow(0);
-        CellStyle cellStyle = workbook.createCellStyle();
-        cellStyle.setBorderBottom(BorderStyle.THIN);
-        cellStyle.setBorderTop(BorderStyle.THIN);
-        cellStyle.setBorderLeft(BorderStyle.THIN);
-        cellStyle.setBorderRight(BorderStyle.THIN);
-        cellStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-        //设置预定义填充颜色
-        cellStyle.setFillForegroundColor(IndexedColors.LIGHT_TURQUOISE.index);
-
-        // 数据处理
-        for (int i = 0; i < data.size(); i++) {
-            //创建工作表的行(表头占用1行, 这里从第二行开始)
-            Row row = sheet.createRow(i + 1);
-            T t = data.get(i);
-            // 填充列数据
-            for (int j = 0; j < fieldList.size(); j++) {
-                Field field = fieldList.get(j);
-                field.setAccessible(Boolean.TRUE);
-                Object value = fieldList.get(j).get(t);
-                String dataValue = Optional.ofNullable(value).orElse("").toString();
-                Class<?> type = field.getType();
-                String dataPattern = field.getAnnotation(ExcelExportField.class).dataPattern();
-                if (type == Date.class) {
-                    dataValue = new SimpleDateFormat(dataPattern).format((Date) value);
-                } else if (type == LocalDate.class || type == LocalDateTime.class) {
-                    assert value != null;
-                    dataValue = DateTimeFormatter.ofPattern(dataPattern).format((TemporalAccessor) value);
-                }
-                if (isNumber(type)) {
-                    // 设置为数值类型
-                    row.createCell(j).setCellValue(Double.parseDouble(dataValue));
-                    continue;
-                }
-                row.createCell(j).setCellValue(dataValue);
-                int tempWidth = CharSequenceUtil.bytes(dataValue, ExcelConstants.CharacterEncoding.GBK).length * 260;
-                if (columnWidthArray[j] < tempWidth) {
-                    columnWidthArray[j] = tempWidth;
-                }
-            }
+    /**
+     * 数据写入工作薄，每个sheet超过sheetRowLimit行时新建sheet(sheet1、sheet2...)继续写入
+     *
+     * @param workbook      工作薄
+     * @param data          数据
+     * @param clazz         对象类型
+     * @param sheetRowLimit 每个sheet的数据行数上限(不含表头)，0表示工作薄上限：xlsx 1048575，xls 65535
+     * @author kun.tan
+     * @date 10:30 2022-09-20
+     */
+    public static <T> void createWorkbook(Workbook workbook, List<T> data, Class<T> clazz, int sheetRowLimit) throws IllegalAccessException {
+        createWorkbook(workbook, data.iterator(), clazz, sheetRowLimit, ExcelColumnWidthStrategy.CHAR_WIDTH, NO_PROGRESS);
+    }
+
+    private static <T> void createWorkbook(Workbook workbook, Iterator<T> data, Class<T> clazz, int sheetRowLimit,
+                                           ExcelColumnWidthStrategy widthStrategy, IntConsumer progress) throws IllegalAccessException {
+        long start = ExcelInstrumentation.isEnabled() ? System.nanoTime() : 0L;
+        ExcelSheetWriter<T> writer = new ExcelSheetWriter<>(workbook, new ExcelStyleRegistry(workbook), clazz, data,
+                index -> DEFAULT_SHEET_NAME_PREFIX + index, sheetRowLimit, widthStrategy);
+        int rows = writer.write(progress);
+        if (start != 0L) {
+            ExcelInstrumentation.getMetrics().recordExportCreate(rows, System.nanoTime() - start);
         }
+    }
 
-        // 表头处理
-        for (int i = 0; i < fieldList.size(); i++) {
-            Field field = fieldList.get(i);
-            field.setAccessible(Boolean.TRUE);
-            ExcelExportField annotation = field.getAnnotation(ExcelExportField.class);
-            sheet.setColumnWidth(i, Math.min(Math.max(annotation.width(), columnWidthArray[i]), 30000));
-            Cell cell = rowHeader.createCell(i);
-            cell.setCellValue(annotation.value());
-            cell.setCellStyle(cellStyle);
-        }
-
-        // 设置列格式
-        for (int colIndex = 0; colIndex < fieldList.size(); colIndex++) {
-            Field field = fieldList.get(colIndex);
-            Class<?> type = field.getType();
-            field.setAccessible(Boolean.TRUE);
-            if (!isNumber(type)) {
-                continue;
+    /**
+     * 多个数据集写入工作薄，每个数据集一个或多个sheet，sheet按数据集顺序排列
+     *
+     * @param workbook 工作薄
+     * @param sheets   数据集
+     * @param executor 写入线程池，为null时逐个写入；不为null时工作薄须为不使用共享字符串表的SXSSFWorkbook
+     */
+    private static void createWorkbook(Workbook workbook, List<ExcelExportSheet<?>> sheets, Executor executor) throws IllegalAccessException {
+        long start = ExcelInstrumentation.isEnabled() ? System.nanoTime() : 0L;
+        // 创建sheet、样式须在同一线程中按顺序进行
+        ExcelStyleRegistry styleRegistry = new ExcelStyleRegistry(workbook);
+        List<ExcelSheetWriter<?>> writers = new ArrayList<>(sheets.size());
+        for (ExcelExportSheet<?> sheet : sheets) {
+            writers.add(sheet.newWriter(workbook, styleRegistry));
+        }
+        int rows = 0;
+        if (executor == null) {
+            for (ExcelSheetWriter<?> writer : writers) {
+                rows += writer.write(NO_PROGRESS);
             }
-            ExcelExportField annotation = field.getAnnotation(ExcelExportField.class);
-            CellStyle numberStyle = workbook.createCellStyle();
-            String fmt = isDefaultFormat(annotation.dataPattern()) ? getDefaultFormat(type) : annotation.dataPattern();
-            numberStyle.setDataFormat((short) BuiltinFormats.getBuiltinFormat(fmt));
-            for (int rowIndex = 1; rowIndex < data.size(); rowIndex++) {
-                sheet.getRow(rowIndex).getCell(colIndex).setCellStyle(numberStyle);
+        } else {
+            List<CompletableFuture<Integer>> futures = new ArrayList<>(writers.size());
+            for (ExcelSheetWriter<?> writer : writers) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return writer.write(NO_PROGRESS);
+                    } catch (IllegalAccessException e) {
+                        throw new ApiException("导出失败");
+                    }
+                }, executor));
+            }
+            for (CompletableFuture<Integer> future : futures) {
+                try {
+                    rows += future.join();
+                } catch (CompletionException e) {
+                    Throwable cause = e.getCause();
+                    throw cause instanceof RuntimeException ? (RuntimeException) cause : new ApiException("导出失败");
+                }
             }
         }
+        // 滚动新建的sheet追加在最后(并行写入时各数据集交替追加)，按数据集顺序重新排列
+        int position = 0;
+        for (ExcelSheetWriter<?> writer : writers) {
+            for (String sheetName : writer.getSheetNames()) {
+                workbook.setSheetOrder(sheetName, position++);
+            }
+        }
+        if (start != 0L) {
+            ExcelInstrumentation.getMetrics().recordExportCreate(rows, System.nanoTime() - start);
+        }
     }
 
+    /**
+     * 导出字段：带@ExcelExportField注解，按sort排序
+     *
+     * @param clazz 对象类型
+     * @return List<Field>
+     */
+    static List<Field> getExportFields(Class<?> clazz) {
+        return Arrays.stream(clazz.getDeclaredFields())
+                .filter(field -> field.isAnnotationPresent(ExcelExportField.class))
+                .sorted(Comparator.comparing(field -> field.getAnnotation(ExcelExportField.class).sort()))
+                .collect(Collectors.toList());
+    }
 
-    private static boolean isDefaultFormat(String fmt) {
+    static boolean isDefaultFormat(String fmt) {
         return "yyyy-MM-dd HH:mm:ss".equals(fmt);
     }
 
-    private static boolean isNumber(Class<?> type) {
+    /**
+     * 数值列的单元格格式：dataPattern的注解默认值是日期格式(yyyy-MM-dd)，
+     * 数值字段沿用默认值或配置了日期格式时按类型取默认数值格式，否则数值会显示为日期
+     *
+     * @param type        字段类型
+     * @param dataPattern 注解的dataPattern
+     * @return 数值格式
+     */
+    static String getNumberFormat(Class<?> type, String dataPattern) {
+        if (dataPattern.isEmpty() || isDefaultFormat(dataPattern) || DateUtil.isADateFormat(-1, dataPattern)) {
+            return getDefaultFormat(type);
+        }
+        return dataPattern;
+    }
+
+    static boolean isNumber(Class<?> type) {
         // 暂时只考虑这么多类型
         return Number.class.isAssignableFrom(type) || type == Integer.TYPE || type == Long.TYPE;
     }
 
-    private static String getDefaultFormat(Class<?> type) {
+    static String getDefaultFormat(Class<?> type) {
         // 暂时只考虑这么多类型
         if (type == Integer.class || type == Integer.TYPE || type == Long.class || type == Long.TYPE) {
             return "0";
         }
         return "0.00";
     }
+
+    /**
+     * 打开输出流，工作薄生成后调用
+     */
+    @FunctionalInterface
+    private interface OutputStreamOpener {
+
+        OutputStream open() throws IOException;
+    }
+
+    /**
+     * 统计输出字节数，不关闭被包装的输出流
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
 }
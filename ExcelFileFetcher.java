@@ -0,0 +1,269 @@
+package com.lvyou.micro.utils.excel;
+
+import com.lvyou.micro.exception.ApiException;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * excel文件下载器：连接/读取超时、大小限制、失败重试，异步下载在有界线程池中执行，排队已满时拒绝提交；
+ * 响应体读完后关闭流(不调用disconnect)，同一主机的连接由HttpURLConnection的keep-alive连接池复用
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-01
+ */
+public class ExcelFileFetcher {
+
+    private static final String USER_AGENT = "Mozilla/4.0 (compatible; MSIE 5.0; Windows NT; DigExt)";
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Executor executor;
+    private int connectTimeout = 3 * 1000;
+    private int readTimeout = 30 * 1000;
+    private long maxBytes = 100L * 1024 * 1024;
+    private int maxRetries = 2;
+    private long retryIntervalMillis = 500;
+
+    /**
+     * 使用默认线程池(4个守护线程，最多排队64个下载)
+     */
+    public ExcelFileFetcher() {
+        this(DefaultExecutorHolder.EXECUTOR);
+    }
+
+    /**
+     * @param executor 异步下载线程池，建议使用有界线程池和有界队列，线程数即同时下载的最大文件数
+     */
+    public ExcelFileFetcher(Executor executor) {
+        this.executor = executor;
+    }
+
+    public ExcelFileFetcher setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+    public ExcelFileFetcher setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+        return this;
+    }
+
+    public ExcelFileFetcher setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        return this;
+    }
+
+    public ExcelFileFetcher setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    public ExcelFileFetcher setRetryIntervalMillis(long retryIntervalMillis) {
+        this.retryIntervalMillis = retryIntervalMillis;
+        return this;
+    }
+
+    Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * 异步下载到临时文件，调用方用完后删除
+     *
+     * @param fileUrl 文件地址
+     * @param suffix  临时文件后缀
+     * @return CompletableFuture<File>
+     * @throws ApiException 线程池排队已满
+     * @author kun.tan
+     * @date 9:40 2022-09-01
+     */
+    public CompletableFuture<File> fetchAsync(String fileUrl, String suffix) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return fetch(fileUrl, suffix);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            throw new ApiException("下载任务过多，请稍后再试");
+        }
+    }
+
+    /**
+     * 下载到临时文件，失败时按重试次数重试，调用方用完后删除
+     *
+     * @param fileUrl 文件地址
+     * @param suffix  临时文件后缀
+     * @return File 临时文件
+     * @author kun.tan
+     * @date 9:40 2022-09-01
+     */
+    public File fetch(String fileUrl, String suffix) throws IOException {
+        File tempFile = File.createTempFile("excel-import", suffix);
+        try {
+            for (int attempt = 0; ; attempt++) {
+                try (InputStream in = open(fileUrl); OutputStream out = Files.newOutputStream(tempFile.toPath())) {
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    int len;
+                    while ((len = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, len);
+                    }
+                    return tempFile;
+                } catch (RetryableException | IOException e) {
+                    if (attempt >= maxRetries) {
+                        throw e instanceof IOException ? (IOException) e : new IOException(e.getMessage());
+                    }
+                    sleepBeforeRetry(attempt);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile.toPath());
+            throw e;
+        }
+    }
+
+    /**
+     * 打开文件流(不重试)，超过大小限制时读取会抛出异常
+     *
+     * @param fileUrl 文件地址
+     * @return InputStream
+     * @author kun.tan
+     * @date 9:40 2022-09-01
+     */
+    public InputStream open(String fileUrl) throws IOException {
+        //url解码
+        URL url = new URL(URLDecoder.decode(fileUrl, "UTF-8"));
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        conn.setConnectTimeout(connectTimeout);
+        conn.setReadTimeout(readTimeout);
+        //防止屏蔽程序抓取而返回403错误
+        conn.setRequestProperty("User-Agent", USER_AGENT);
+        int status = conn.getResponseCode();
+        if (status != HttpURLConnection.HTTP_OK) {
+            discard(conn.getErrorStream());
+            if (status >= HttpURLConnection.HTTP_INTERNAL_ERROR || status == 429) {
+                throw new RetryableException("文件下载失败：HTTP " + status);
+            }
+            throw new ApiException("文件下载失败：HTTP " + status);
+        }
+        long contentLength = conn.getContentLengthLong();
+        if (contentLength > maxBytes) {
+            discard(conn.getInputStream());
+            throw new ApiException("文件超过大小限制：" + maxBytes + "字节");
+        }
+        return new LimitedInputStream(conn.getInputStream(), maxBytes);
+    }
+
+    private void sleepBeforeRetry(int attempt) throws IOException {
+        try {
+            Thread.sleep(retryIntervalMillis * (attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("文件下载被中断");
+        }
+    }
+
+    /**
+     * 读完并关闭响应体，连接才能放回keep-alive连接池
+     */
+    private static void discard(InputStream in) {
+        if (in == null) {
+            return;
+        }
+        try (InputStream stream = in) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (stream.read(buffer) != -1) {
+                //do nothing
+            }
+        } catch (IOException e) {
+            //连接无法复用，忽略
+        }
+    }
+
+    /**
+     * 可重试的下载失败(5xx、429)
+     */
+    private static class RetryableException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        RetryableException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 超过maxBytes时抛出异常的输入流
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private final long maxBytes;
+        private long count;
+
+        LimitedInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) {
+            count += n;
+            if (count > maxBytes) {
+                throw new ApiException("文件超过大小限制：" + maxBytes + "字节");
+            }
+        }
+    }
+
+    private static class DefaultExecutorHolder {
+
+        private static final int THREADS = 4;
+        private static final int QUEUE_CAPACITY = 64;
+        private static final AtomicInteger THREAD_NUM = new AtomicInteger();
+        private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(THREADS, THREADS, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+            Thread thread = new Thread(r, "excel-fetch-" + THREAD_NUM.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        static {
+            EXECUTOR.allowCoreThreadTimeOut(true);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.lvyou.micro.utils.excel;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * 导出格式缓存，按dataPattern缓存：DateTimeFormatter(线程安全，全局共享)、SimpleDateFormat(非线程安全，每个线程一份)、
+ * 转换后的excel日期格式。pattern来自@ExcelExportField注解，数量有限，缓存不淘汰
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-22
+ */
+final class ExcelFormatterCache {
+
+    private static final Map<String, DateTimeFormatter> DATE_TIME_FORMATTERS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Map<String, DateFormat>> DATE_FORMATS = ThreadLocal.withInitial(HashMap::new);
+    private static final Map<String, Optional<String>> EXCEL_DATE_FORMATS = new ConcurrentHashMap<>();
+
+    /**
+     * 不需要转义的日期格式分隔符
+     */
+    private static final String PLAIN_LITERALS = "-/:., ()";
+
+    private ExcelFormatterCache() {
+        //do nothing
+    }
+
+    static DateTimeFormatter getDateTimeFormatter(String pattern) {
+        return DATE_TIME_FORMATTERS.computeIfAbsent(pattern, DateTimeFormatter::ofPattern);
+    }
+
+    /**
+     * 当前线程的SimpleDateFormat，不能传给其他线程使用
+     *
+     * @param pattern 格式
+     * @return DateFormat
+     */
+    static DateFormat getDateFormat(String pattern) {
+        return DATE_FORMATS.get().computeIfAbsent(pattern, SimpleDateFormat::new);
+    }
+
+    /**
+     * 按字段类型格式化为文本：Date、TemporalAccessor按pattern，BigDecimal不用科学计数法，其他toString
+     *
+     * @param type    字段类型
+     * @param pattern 日期格式
+     * @return 格式化函数，值不能为null
+     */
+    static Function<Object, String> getFormatter(Class<?> type, String pattern) {
+        if (Date.class.isAssignableFrom(type)) {
+            return value -> getDateFormat(pattern).format((Date) value);
+        } else if (TemporalAccessor.class.isAssignableFrom(type)) {
+            DateTimeFormatter formatter = getDateTimeFormatter(pattern);
+            return value -> formatter.format((TemporalAccessor) value);
+        } else if (type == BigDecimal.class) {
+            return value -> ((BigDecimal) value).toPlainString();
+        }
+        return Object::toString;
+    }
+
+    /**
+     * 按导出字段顺序获取格式化函数
+     *
+     * @param fields 带@ExcelExportField注解的字段
+     * @return 格式化函数，与字段一一对应
+     */
+    static Function<Object, String>[] getFormatters(List<Field> fields) {
+        @SuppressWarnings("unchecked")
+        Function<Object, String>[] formatters = (Function<Object, String>[]) new Function<?, ?>[fields.size()];
+        for (int i = 0; i < formatters.length; i++) {
+            Field field = fields.get(i);
+            formatters[i] = getFormatter(field.getType(), field.getAnnotation(ExcelExportField.class).dataPattern());
+        }
+        return formatters;
+    }
+
+    /**
+     * java日期格式转excel单元格格式，如yyyy-MM-dd HH:mm:ss转为yyyy-mm-dd hh:mm:ss
+     *
+     * @param pattern java日期格式
+     * @return excel格式，含不支持的字母(如毫秒S、周数w)或poi不能识别为日期格式时为null
+     */
+    static String getExcelDateFormat(String pattern) {
+        return EXCEL_DATE_FORMATS.computeIfAbsent(pattern, p -> Optional.ofNullable(toExcelDateFormat(p))).orElse(null);
+    }
+
+    private static String toExcelDateFormat(String pattern) {
+        StringBuilder format = new StringBuilder();
+        boolean amPm = pattern.indexOf('a') >= 0;
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                // 引号内为文本，''为单引号
+                int end = pattern.indexOf('\'', i + 1);
+                if (end < 0) {
+                    return null;
+                }
+                appendLiteral(format, end == i + 1 ? "'" : pattern.substring(i + 1, end));
+                i = end + 1;
+                continue;
+            }
+            // 只有ASCII字母是格式字母, 中文等按文本
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z')) {
+                appendLiteral(format, String.valueOf(c));
+                i++;
+                continue;
+            }
+            int count = 1;
+            while (i + count < pattern.length() && pattern.charAt(i + count) == c) {
+                count++;
+            }
+            i += count;
+            switch (c) {
+                case 'y':
+                    format.append(count == 2 ? "yy" : "yyyy");
+                    break;
+                case 'M':
+                    repeat(format, 'm', Math.min(count, 4));
+                    break;
+                case 'd':
+                    repeat(format, 'd', Math.min(count, 2));
+                    break;
+                case 'H':
+                    repeat(format, 'h', Math.min(count, 2));
+                    break;
+                case 'h':
+                    // excel只有带AM/PM时为12小时制
+                    if (!amPm) {
+                        return null;
+                    }
+                    repeat(format, 'h', Math.min(count, 2));
+                    break;
+                case 'm':
+                    repeat(format, 'm', Math.min(count, 2));
+                    break;
+                case 's':
+                    repeat(format, 's', Math.min(count, 2));
+                    break;
+                case 'a':
+                    format.append("AM/PM");
+                    break;
+                case 'E':
+                    format.append(count >= 4 ? "dddd" : "ddd");
+                    break;
+                default:
+                    return null;
+            }
+        }
+        // 导入时按DateUtil识别日期单元格, 识别不了的格式仍写文本
+        return DateUtil.isADateFormat(-1, format.toString()) ? format.toString() : null;
+    }
+
+    private static void appendLiteral(StringBuilder format, String literal) {
+        // 中文等非ASCII字符及常用分隔符原样输出, 其他ASCII字符(可能是excel格式字母)用\转义
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            if (c > 0x7F || PLAIN_LITERALS.indexOf(c) >= 0) {
+                format.append(c);
+            } else {
+                format.append('\\').append(c);
+            }
+        }
+    }
+
+    private static void repeat(StringBuilder format, char c, int count) {
+        for (int i = 0; i < count; i++) {
+            format.append(c);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.lvyou.micro.utils.excel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * 表头解析：表头文本只在建表时规范化一次(去掉空白、全角转半角、转小写)，得到(规范化列名, 列序号)，
+ * 由{@link ExcelBindingPlan}按字段名和别名查一次生成字段到列的int[]，逐行转换时不再查表。
+ * 多行表头(由{@link ExcelImportOptions#setMultiRowHeader}开启，列名行到数据开始行之间的行)：第一行的列名优先，其余行的列名在第一行中不存在时补充；
+ * 另外每列按"上级列名/下级列名"登记完整路径，上级列名为合并单元格时向右补齐，用于区分不同分组下的同名列
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-22
+ */
+final class ExcelHeaderResolver {
+
+    static final char PATH_SEPARATOR = '/';
+
+    private static final ExcelHeaderResolver EMPTY = new ExcelHeaderResolver(Collections.emptyMap());
+
+    private final Map<String, Integer> columns;
+
+    private ExcelHeaderResolver(Map<String, Integer> columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * 按行号从解析结果中取表头行
+     *
+     * @param rows              解析的数据集合
+     * @param columnsNameRowNum 列名行号(从1开始)
+     * @param headerEndRowNum   表头最后一行的行号(含)，与列名行相同时为单行表头
+     * @return ExcelHeaderResolver
+     */
+    static ExcelHeaderResolver of(List<List<Object>> rows, int columnsNameRowNum, int headerEndRowNum) {
+        int from = Math.min(columnsNameRowNum - 1, rows.size());
+        int to = Math.min(Math.max(columnsNameRowNum, headerEndRowNum), rows.size());
+        return of(rows.subList(from, to));
+    }
+
+    /**
+     * 解析表头
+     *
+     * @param headerRows 表头行，从上到下
+     * @return ExcelHeaderResolver
+     */
+    static ExcelHeaderResolver of(List<List<Object>> headerRows) {
+        if (headerRows.isEmpty()) {
+            return EMPTY;
+        }
+        int columnNum = 0;
+        String[][] names = new String[headerRows.size()][];
+        for (int r = 0; r < names.length; r++) {
+            List<Object> row = headerRows.get(r);
+            names[r] = new String[row.size()];
+            for (int c = 0; c < row.size(); c++) {
+                names[r][c] = normalize(ExcelCellReader.readString(row.get(c)));
+            }
+            columnNum = Math.max(columnNum, row.size());
+        }
+        Map<String, Integer> columns = new HashMap<>(columnNum * 2);
+        // 同一行中重复的列名取最后一列，与getColumnNameAndIndex一致
+        for (int c = 0; c < names[0].length; c++) {
+            if (!names[0][c].isEmpty()) {
+                columns.put(names[0][c], c);
+            }
+        }
+        for (int r = 1; r < names.length; r++) {
+            Map<String, Integer> rowColumns = new HashMap<>();
+            for (int c = 0; c < names[r].length; c++) {
+                if (!names[r][c].isEmpty()) {
+                    rowColumns.put(names[r][c], c);
+                }
+            }
+            rowColumns.forEach(columns::putIfAbsent);
+        }
+        if (names.length > 1) {
+            addPaths(names, columnNum, columns);
+        }
+        return new ExcelHeaderResolver(columns);
+    }
+
+    /**
+     * 登记每列的完整路径；上级行的空单元格在同一分组内(再上一级相同)取左边的列名，对应合并单元格只有第一格有值
+     */
+    private static void addPaths(String[][] names, int columnNum, Map<String, Integer> columns) {
+        int levels = names.length;
+        String[] previous = new String[levels];
+        StringBuilder path = new StringBuilder();
+        for (int c = 0; c < columnNum; c++) {
+            String[] current = new String[levels];
+            path.setLength(0);
+            int parts = 0;
+            for (int r = 0; r < levels; r++) {
+                String name = c < names[r].length ? names[r][c] : "";
+                boolean sameGroup = r == 0 || current[r - 1].equals(previous[r - 1]);
+                if (name.isEmpty() && r < levels - 1 && c > 0 && sameGroup) {
+                    name = previous[r];
+                }
+                current[r] = name;
+                if (!name.isEmpty()) {
+                    if (path.length() > 0) {
+                        path.append(PATH_SEPARATOR);
+                    }
+                    path.append(name);
+                    parts++;
+                }
+            }
+            if (parts > 1) {
+                columns.putIfAbsent(path.toString(), c);
+            }
+            previous = current;
+        }
+    }
+
+    /**
+     * 按名称查找列，依次尝试，返回第一个存在的列
+     *
+     * @param normalizedNames 规范化的列名及别名
+     * @return 列序号，不存在时为-1
+     */
+    int indexOf(String[] normalizedNames) {
+        for (String name : normalizedNames) {
+            Integer columnIndex = columns.get(name);
+            if (columnIndex != null) {
+                return columnIndex;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 规范化的列名及别名
+     *
+     * @param columnName 列名
+     * @param aliases    别名
+     * @return String[]
+     */
+    static String[] normalizeAll(String columnName, String[] aliases) {
+        List<String> names = new ArrayList<>(aliases.length + 1);
+        names.add(normalize(columnName));
+        for (String alias : aliases) {
+            String name = normalize(alias);
+            if (!name.isEmpty() && !names.contains(name)) {
+                names.add(name);
+            }
+        }
+        return names.toArray(new String[0]);
+    }
+
+    /**
+     * 规范化列名：去掉全部空白(含全角空格、换行)，全角字符转半角，英文转小写
+     *
+     * @param text 列名
+     * @return 规范化的列名
+     */
+    static String normalize(String text) {
+        char[] chars = new char[text.length()];
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                continue;
+            }
+            if (c >= '\uFF01' && c <= '\uFF5E') {
+                c = (char) (c - 0xFEE0);
+            }
+            chars[length++] = Character.toLowerCase(c);
+        }
+        return new String(chars, 0, length);
+    }
+}
@@ -0,0 +1,86 @@
+package com.lvyou.micro.utils.excel;
+
+import org.apache.poi.ss.util.CellReference;
+
+/**
+ * <p>
+ * 导入校验错误，定位到sheet、行、列
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-20
+ */
+public class ExcelImportError {
+
+    private final String sheetName;
+    private final int rowNum;
+    private final int columnIndex;
+    private final String columnName;
+    private final Object value;
+    private final String message;
+
+    ExcelImportError(String sheetName, int rowNum, int columnIndex, String columnName, Object value, String message) {
+        this.sheetName = sheetName;
+        this.rowNum = rowNum;
+        this.columnIndex = columnIndex;
+        this.columnName = columnName;
+        // 流式解析的数值单元格按文本保留，与RejectedRow一致
+        this.value = value instanceof ExcelCellReader.NumericValue ? value.toString() : value;
+        this.message = message;
+    }
+
+    public String getSheetName() {
+        return sheetName;
+    }
+
+    /**
+     * 行号(从1开始，与excel中显示的行号一致；csv为文件中的行号)
+     */
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    /**
+     * 列序号(从0开始)，整行的错误或列名不在表头中时为-1
+     */
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
+    /**
+     * 列字母(A、B...AA)，整行的错误为空字符串
+     */
+    public String getColumnLetter() {
+        return columnIndex < 0 ? "" : CellReference.convertNumToColString(columnIndex);
+    }
+
+    /**
+     * 列名，业务校验未指定列时为空字符串
+     */
+    public String getColumnName() {
+        return columnName;
+    }
+
+    /**
+     * 单元格原始值，整行的错误为null
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("sheet[").append(sheetName).append("]第").append(rowNum).append("行");
+        if (columnIndex >= 0) {
+            sb.append(getColumnLetter()).append("列");
+        }
+        if (!columnName.isEmpty()) {
+            sb.append("(").append(columnName).append(")");
+        }
+        return sb.append("：").append(message).toString();
+    }
+}
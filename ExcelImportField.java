@@ -0,0 +1,20 @@
+package com.lvyou.micro.utils.excel;
+
+import java.lang.annotation.*;
+
+/**
+ * 导入字段的表头别名，与ApiModelProperty的列名一起匹配表头(忽略空白、全半角、大小写)，列名优先
+ *
+ * @author kun.tan
+ * @since 2022-09-22
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ExcelImportField {
+
+    /**
+     * 表头别名，多行表头(ExcelImportOptions#setMultiRowHeader)可用"上级列名/列名"
+     */
+    String[] aliases() default {};
+}
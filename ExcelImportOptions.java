@@ -0,0 +1,165 @@
+package com.lvyou.micro.utils.excel;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>
+ * 流式导入选项：选择sheet、行范围、只解析目标类绑定的列，不需要的sheet、行、列在解析时直接跳过，不生成单元格值
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-26
+ */
+public class ExcelImportOptions {
+
+    private Set<String> sheetNames;
+    private Set<Integer> sheetIndexes;
+    private int sheetHeadRowNum = ExcelImportUtil.IGNORE_SHEET_HEAD_ROW_NUM;
+    private int firstRowNum = 1;
+    private int lastRowNum = Integer.MAX_VALUE;
+    private boolean projectColumns = true;
+    private boolean multiRowHeader;
+    private Executor convertExecutor;
+
+    /**
+     * 只解析指定名称的sheet，与setSheetIndexes同时设置时满足其一即解析；csv不适用
+     *
+     * @param sheetNames sheet名称
+     * @return ExcelImportOptions
+     */
+    public ExcelImportOptions setSheetNames(String... sheetNames) {
+        this.sheetNames = new HashSet<>();
+        for (String sheetName : sheetNames) {
+            this.sheetNames.add(sheetName);
+        }
+        return this;
+    }
+
+    /**
+     * 只解析指定序号的sheet，与setSheetNames同时设置时满足其一即解析；csv不适用
+     *
+     * @param sheetIndexes sheet序号(从0开始)
+     * @return ExcelImportOptions
+     */
+    public ExcelImportOptions setSheetIndexes(int... sheetIndexes) {
+        this.sheetIndexes = new HashSet<>();
+        for (int sheetIndex : sheetIndexes) {
+            this.sheetIndexes.add(sheetIndex);
+        }
+        return this;
+    }
+
+    /**
+     * 每个sheet开头(从第一个有数据的行算起)忽略的行数，csv不适用
+     *
+     * @param sheetHeadRowNum 忽略的行数，默认2
+     * @return ExcelImportOptions
+     */
+    public ExcelImportOptions setSheetHeadRowNum(int sheetHeadRowNum) {
+        this.sheetHeadRowNum = sheetHeadRowNum;
+        return this;
+    }
+
+    /**
+     * 每个sheet只解析行号在范围内的行，超出lastRowNum后不再读取该sheet的其余内容
+     *
+     * @param firstRowNum 开始行号(从1开始，与excel中显示的行号一致；csv为文件中的第几行)
+     * @param lastRowNum  结束行号(含)
+     * @return ExcelImportOptions
+     */
+    public ExcelImportOptions setRowRange(int firstRowNum, int lastRowNum) {
+        this.firstRowNum = firstRowNum;
+        this.lastRowNum = lastRowNum;
+        return this;
+    }
+
+    /**
+     * 表头之后的行只解析目标类绑定的列，其余列在行数据中为空字符串；
+     * 需要完整的未通过校验的行时关闭
+     *
+     * @param projectColumns 是否只解析绑定的列，默认true
+     * @return ExcelImportOptions
+     */
+    public ExcelImportOptions setProjectColumns(boolean projectColumns) {
+        this.projectColumns = projectColumns;
+        return this;
+    }
+
+    /**
+     * 多行表头：列名行到数据开始行之间的行都作为表头，下级列名可用"上级列名/列名"匹配；
+     * 默认只有列名行为表头，中间的行(如说明行)忽略
+     *
+     * @param multiRowHeader 是否多行表头，默认false
+     * @return ExcelImportOptions
+     */
+    public ExcelImportOptions setMultiRowHeader(boolean multiRowHeader) {
+        this.multiRowHeader = multiRowHeader;
+        return this;
+    }
+
+    /**
+     * 转换线程池，行转对象分段并行执行，结果保持原始行顺序
+     *
+     * @param convertExecutor 转换线程池，为null时在解析线程中逐行转换
+     * @return ExcelImportOptions
+     */
+    public ExcelImportOptions setConvertExecutor(Executor convertExecutor) {
+        this.convertExecutor = convertExecutor;
+        return this;
+    }
+
+    boolean isProjectColumns() {
+        return projectColumns;
+    }
+
+    Executor getConvertExecutor() {
+        return convertExecutor;
+    }
+
+    /**
+     * 表头最后一行的行号：多行表头为数据开始行的上一行，否则为列名行
+     *
+     * @param columnsNameRowNum 列名行号(从1开始)
+     * @param dataStartRowNum   数据开始行号
+     */
+    int getHeaderEndRowNum(int columnsNameRowNum, int dataStartRowNum) {
+        return multiRowHeader ? Math.max(columnsNameRowNum, dataStartRowNum - 1) : columnsNameRowNum;
+    }
+
+    boolean isSheetSelected(int sheetIndex, String sheetName) {
+        if (sheetNames == null && sheetIndexes == null) {
+            return true;
+        }
+        return sheetNames != null && sheetNames.contains(sheetName) || sheetIndexes != null && sheetIndexes.contains(sheetIndex);
+    }
+
+    /**
+     * 行是否在行范围内
+     *
+     * @param rowNum 行号(从0开始)
+     */
+    boolean isInRowRange(int rowNum) {
+        return rowNum + 1 >= firstRowNum && rowNum + 1 <= lastRowNum;
+    }
+
+    /**
+     * 行是否已超出行范围，之后的行都不需要解析
+     *
+     * @param rowNum 行号(从0开始)
+     */
+    boolean isAfterRowRange(int rowNum) {
+        return rowNum + 1 > lastRowNum;
+    }
+
+    /**
+     * 行是否需要输出：不在sheet开头忽略的行中且在行范围内
+     *
+     * @param rowNum          行号(从0开始)
+     * @param sheetFirstRowNum sheet第一个有数据的行号(从0开始)
+     */
+    boolean isRowSelected(int rowNum, int sheetFirstRowNum) {
+        return rowNum >= sheetFirstRowNum + sheetHeadRowNum && isInRowRange(rowNum);
+    }
+}
@@ -0,0 +1,168 @@
+package com.lvyou.micro.utils.excel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * 导入校验结果：一次解析检查全部行，校验通过的对象与未通过的行分开返回；
+ * 错误明细和未通过的行最多各保留maxErrors条(按行顺序)，超出的只计数
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-20
+ */
+public class ExcelImportResult<T> {
+
+    private final int maxErrors;
+    private final List<T> validRows = new ArrayList<>();
+    private final List<RejectedRow> rejectedRows = new ArrayList<>();
+    private final List<ExcelImportError> errors = new ArrayList<>();
+    private int rejectedRowCount;
+    private int errorCount;
+
+    ExcelImportResult(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * 校验通过的对象(按行顺序)
+     */
+    public List<T> getValidRows() {
+        return validRows;
+    }
+
+    /**
+     * 未通过的行，最多maxErrors条
+     */
+    public List<RejectedRow> getRejectedRows() {
+        return rejectedRows;
+    }
+
+    /**
+     * 错误明细，最多maxErrors条
+     */
+    public List<ExcelImportError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * 检查的数据行数
+     */
+    public int getRowCount() {
+        return validRows.size() + rejectedRowCount;
+    }
+
+    /**
+     * 未通过的行数(含超出maxErrors未保留的)
+     */
+    public int getRejectedRowCount() {
+        return rejectedRowCount;
+    }
+
+    /**
+     * 错误数(含超出maxErrors未保留的)
+     */
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    public boolean hasErrors() {
+        return errorCount > 0;
+    }
+
+    /**
+     * 错误明细是否因超出maxErrors被截断
+     */
+    public boolean isTruncated() {
+        return errorCount > errors.size();
+    }
+
+    void addValid(T dto) {
+        validRows.add(dto);
+    }
+
+    /**
+     * 记录未通过的行
+     *
+     * @param row        行数据
+     * @param rowErrors  该行的错误
+     */
+    void addRejected(RejectedRow row, List<ExcelImportError> rowErrors) {
+        if (rejectedRows.size() < maxErrors) {
+            rejectedRows.add(row);
+        }
+        rejectedRowCount++;
+        for (ExcelImportError error : rowErrors) {
+            if (errors.size() < maxErrors) {
+                errors.add(error);
+            }
+        }
+        errorCount += rowErrors.size();
+    }
+
+    /**
+     * 按顺序追加另一段的结果(并行转换时合并各段)
+     *
+     * @param other 后一段的结果
+     */
+    void merge(ExcelImportResult<T> other) {
+        validRows.addAll(other.validRows);
+        for (RejectedRow row : other.rejectedRows) {
+            if (rejectedRows.size() < maxErrors) {
+                rejectedRows.add(row);
+            }
+        }
+        for (ExcelImportError error : other.errors) {
+            if (errors.size() < maxErrors) {
+                errors.add(error);
+            }
+        }
+        rejectedRowCount += other.rejectedRowCount;
+        errorCount += other.errorCount;
+    }
+
+    /**
+     * 未通过校验的行
+     */
+    public static class RejectedRow {
+
+        private final String sheetName;
+        private final int rowNum;
+        private final List<Object> values;
+        private final List<ExcelImportError> errors;
+
+        RejectedRow(String sheetName, int rowNum, List<Object> values, List<ExcelImportError> errors) {
+            this.sheetName = sheetName;
+            this.rowNum = rowNum;
+            this.values = Collections.unmodifiableList(values);
+            this.errors = Collections.unmodifiableList(errors);
+        }
+
+        public String getSheetName() {
+            return sheetName;
+        }
+
+        /**
+         * 行号(从1开始)
+         */
+        public int getRowNum() {
+            return rowNum;
+        }
+
+        /**
+         * 单元格文本，列序号与表头一致
+         */
+        public List<Object> getValues() {
+            return values;
+        }
+
+        /**
+         * 该行的全部错误
+         */
+        public List<ExcelImportError> getErrors() {
+            return errors;
+        }
+    }
+}
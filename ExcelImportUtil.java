@@ -1,12 +1,9 @@
 package com.lvyou.micro.utils.excel;
 
-import cn.hutool.core.collection.CollUtil;
 import com.lvyou.micro.exception.ApiException;
-import com.lvyou.micro.utils.LocalDateTimeUtils;
-import com.lvyou.micro.utils.MathUtils;
-import io.swagger.annotations.ApiModelProperty;
 import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.fileupload.FileUploadException;
+import org.apache.commons.fileupload.disk.DiskFileItem;
 import org.apache.commons.fileupload.disk.DiskFileItemFactory;
 import org.apache.commons.fileupload.servlet.ServletFileUpload;
 import org.apache.commons.lang3.StringUtils;
@@ -19,25 +16,30 @@ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.util.CollectionUtils;
 
 import javax.servlet.http.HttpServletRequest;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Field;
-import java.math.BigDecimal;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
 
 import static org.apache.poi.ss.usermodel.CellType.BLANK;
 
 
 /**
  * <p>
- * excel导入工具类
+ * excel导入工具类，同样支持.csv(没有标题行，每个sheet开头忽略的行不适用于csv)
  * </p>
  *
  * @author kun.tan
@@ -52,6 +54,32 @@ public class ExcelImportUtil {
 
     private static final String EXCEL_2003 = ".xls";
     private static final String EXCEL_2007 = ".xlsx";
+    private static final String CSV = ".csv";
+
+    /**
+     * 每个sheet开头忽略的行数
+     */
+    static final int IGNORE_SHEET_HEAD_ROW_NUM = 2;
+
+    /**
+     * 迭代读取时的缓冲行数
+     */
+    private static final int ITERATOR_BUFFER_SIZE = 1000;
+
+    /**
+     * 并行转换时每段的行数
+     */
+    private static final int PARALLEL_CONVERT_CHUNK_SIZE = 1000;
+
+    /**
+     * 不需要行号时使用
+     */
+    private static final IntConsumer NO_ROW_NUMS = rowNum -> { };
+
+    /**
+     * 同步导入使用的文件下载器
+     */
+    private static final ExcelFileFetcher DEFAULT_FETCHER = new ExcelFileFetcher();
 
     /**
      * 解析excel导入数据
@@ -62,22 +90,11 @@ public class ExcelImportUtil {
      * @date 11:31 2022-07-18
      */
     public static List<List<Object>> getDataListFromExcelFile(HttpServletRequest request) throws FileUploadException,IOException {
-        DiskFileItemFactory factory = new DiskFileItemFactory();
-        // 设置缓冲区大小，这里是4kb
-        factory.setSizeThreshold(4096);
-        ServletFileUpload upload = new ServletFileUpload(factory);
-        // 解决文件名称乱码
-        upload.setHeaderEncoding("utf-8");
-        List<FileItem> itemsList = upload.parseRequest(request);
-
-        if (CollectionUtils.isEmpty(itemsList)) {
-            throw new ApiException("请选择文件");
-        }
-        FileItem fileItem = itemsList.get(0);
-        // 创建Excel工作薄
-        Workbook work = getWorkbook(fileItem);
-        // 工作薄转对象集合
-        return changeWorkToObjectList(work);
+        FileItem fileItem = getFileItem(request);
+        ImportTrace trace = ImportTrace.start();
+        List<List<Object>> list = readDataList(fileItem, trace, NO_ROW_NUMS);
+        trace.finish(list.size());
+        return list;
     }
 
     /**
@@ -90,21 +107,64 @@ public class ExcelImportUtil {
      * @date 11:31 2022-07-18
      */
     public static List<List<Object>> getDataListFromExcelFileUrl(String fileName,String fileUrl) throws FileUploadException,IOException {
-        Workbook work ;
-        //1：验证文件格式
-        String fileType = fileName.substring(fileName.lastIndexOf('.'));
-        InputStream fileStream= getInputStreamFromUrl(fileUrl);
-        if (EXCEL_2003.equals(fileType)) {
-            work = new HSSFWorkbook(fileStream);
-        } else if (EXCEL_2007.equals(fileType)) {
-            work = new XSSFWorkbook(fileStream);
-        } else {
-            throw new ApiException("解析的文件有误");
-        }
+        ImportTrace trace = ImportTrace.start();
+        List<List<Object>> list = readDataList(fileName, fileUrl, trace, NO_ROW_NUMS);
+        trace.finish(list.size());
+        return list;
+    }
 
+    /**
+     * 解析全部行
+     *
+     * @param rowNums 每读到一行回调该行的行号(从0开始)
+     */
+    private static List<List<Object>> readDataList(FileItem fileItem, ImportTrace trace, IntConsumer rowNums) throws IOException {
+        trace.bytesRead(fileItem.getSize());
+        if (isCsv(fileItem.getName())) {
+            List<List<Object>> list = new ArrayList<>();
+            readLocalFile(fileItem, (name, file) -> readCsvDataList(file, list, trace, rowNums));
+            return list;
+        }
+        trace.opening();
+        // 创建Excel工作薄
+        Workbook work = getWorkbook(fileItem);
         // 工作薄转对象集合
-        return changeWorkToObjectList(work);
+        return changeWorkToObjectList(work, trace, rowNums);
+    }
+
+    private static List<List<Object>> readDataList(String fileName, String fileUrl, ImportTrace trace, IntConsumer rowNums)
+            throws IOException {
+        List<List<Object>> list = new ArrayList<>();
+        // 下载到临时文件后解析，下载按下载器配置超时、限制大小、失败重试
+        readUrlFile(fileName, fileUrl, (name, file) -> {
+            trace.bytesRead(file.length());
+            if (isCsv(name)) {
+                readCsvDataList(file, list, trace, rowNums);
+                return;
+            }
+            Workbook work ;
+            trace.opening();
+            try (InputStream fileStream = Files.newInputStream(file.toPath())) {
+                if (EXCEL_2003.equals(getFileType(name))) {
+                    work = new HSSFWorkbook(fileStream);
+                } else {
+                    work = new XSSFWorkbook(fileStream);
+                }
+            }
+            // 工作薄转对象集合
+            list.addAll(changeWorkToObjectList(work, trace, rowNums));
+        });
+        return list;
     }
+    private static void readCsvDataList(File file, List<List<Object>> list, ImportTrace trace, IntConsumer rowNums) throws IOException {
+        trace.opening();
+        ExcelCsvReader.read(file, new ExcelImportOptions(), trace.listen((sheetIndex, rowNum, row) -> {
+            list.add(row);
+            rowNums.accept(rowNum);
+        }, false));
+        trace.rowsRead();
+    }
+
     /**
      * 获取列名和列的序号
      *
@@ -120,10 +180,10 @@ public class ExcelImportUtil {
         Integer columnNum= rowOfColumnsName.size();
 
         for (int i = 0; i < columnNum; i++) {
-            if(StringUtils.isNotEmpty(rowOfColumnsName.get(i).toString())){
-                columnMap.put(rowOfColumnsName.get(i).toString().trim(),i);
+            String columnName = ExcelCellReader.readString(rowOfColumnsName.get(i)).trim();
+            if(StringUtils.isNotEmpty(columnName)){
+                columnMap.put(columnName,i);
             }
-            continue;
         }
         return columnMap;
     }
@@ -145,9 +205,41 @@ public class ExcelImportUtil {
      */
     public static <T> List<T> getDataListFromExcelFileUrl(Class<T> clazz,String fileName,String fileUrl,Integer ignoreStartRowNum,
                                                           Integer columnsNameRowNum, Integer dataStartRowNum,Integer ignoreEndRowNum) throws FileUploadException,IOException{
-        List<List<Object>> importExcelData= getDataListFromExcelFileUrl(fileName,fileUrl);
-        HashMap<String, Integer> columbMap= getColumnNameAndIndex(importExcelData,columnsNameRowNum);
-        return changeToObjList(clazz, importExcelData, columbMap,ignoreStartRowNum, dataStartRowNum,ignoreEndRowNum);
+        ImportTrace trace = ImportTrace.start();
+        RowNums rowNums = new RowNums();
+        List<List<Object>> importExcelData= readDataList(fileName, fileUrl, trace, rowNums);
+        ExcelHeaderResolver header = ExcelHeaderResolver.of(importExcelData, columnsNameRowNum, columnsNameRowNum);
+        List<T> dtoList = changeToObjList(clazz, importExcelData, header, rowNums, dataStartRowNum,ignoreEndRowNum, trace);
+        trace.finish(dtoList.size());
+        return dtoList;
+    }
+
+    /**
+     * 根据文件url导入数据返回对象集合，行转对象分段交给线程池并行执行，结果保持原始行顺序
+     *
+     * @param clazz 对象类型
+     * @param fileName 文件名称
+     * @param fileUrl   文件地址
+     * @param ignoreStartRowNum   开头忽略的行数
+     * @param columnsNameRowNum   列名行号
+     * @param dataStartRowNum   数据开始行号
+     * @param ignoreEndRowNum   结尾忽略的行数
+     * @param convertExecutor   转换线程池
+     * @return List<T>  对象集合
+     * @author kun.tan
+     * @date 10:30 2022-08-26
+     */
+    public static <T> List<T> getDataListFromExcelFileUrl(Class<T> clazz,String fileName,String fileUrl,Integer ignoreStartRowNum,
+                                                          Integer columnsNameRowNum, Integer dataStartRowNum,Integer ignoreEndRowNum,
+                                                          Executor convertExecutor) throws FileUploadException,IOException{
+        ImportTrace trace = ImportTrace.start();
+        RowNums rowNums = new RowNums();
+        List<List<Object>> importExcelData= readDataList(fileName, fileUrl, trace, rowNums);
+        ExcelHeaderResolver header = ExcelHeaderResolver.of(importExcelData, columnsNameRowNum, columnsNameRowNum);
+        List<T> dtoList = changeToObjListParallel(clazz, importExcelData, header, rowNums, dataStartRowNum, ignoreEndRowNum,
+                convertExecutor, trace);
+        trace.finish(dtoList.size());
+        return dtoList;
     }
     /**
      * 导入文件流返回对象集合
@@ -163,152 +255,1269 @@ public class ExcelImportUtil {
      */
     public static <T> List<T> getDataListFromExcelFile(HttpServletRequest request,Class<T> clazz,Integer ignoreStartRowNum,
                                                        Integer columnsNameRowNum, Integer dataStartRowNum,Integer ignoreEndRowNum) throws FileUploadException,IOException{
-        List<List<Object>> importExcelData= getDataListFromExcelFile(request);
-        HashMap<String, Integer> columbMap= getColumnNameAndIndex(importExcelData,columnsNameRowNum);
-        return changeToObjList(clazz, importExcelData, columbMap,ignoreStartRowNum, dataStartRowNum,ignoreEndRowNum);
+        FileItem fileItem = getFileItem(request);
+        ImportTrace trace = ImportTrace.start();
+        RowNums rowNums = new RowNums();
+        List<List<Object>> importExcelData= readDataList(fileItem, trace, rowNums);
+        ExcelHeaderResolver header = ExcelHeaderResolver.of(importExcelData, columnsNameRowNum, columnsNameRowNum);
+        List<T> dtoList = changeToObjList(clazz, importExcelData, header, rowNums, dataStartRowNum,ignoreEndRowNum, trace);
+        trace.finish(dtoList.size());
+        return dtoList;
     }
 
     /**
-     * 导入数据转对象集合
-     *
+     * 导入文件流返回对象集合，行转对象分段交给线程池并行执行，结果保持原始行顺序
+     * @param request 请求体
      * @param clazz 对象类型
-     * @param importExcelData 解析的数据集合
-     * @param columbMap   HashMap<列名, 列序号>
      * @param ignoreStartRowNum   开头忽略的行数
+     * @param columnsNameRowNum   列名行号
      * @param dataStartRowNum   数据开始行号
      * @param ignoreEndRowNum   结尾忽略的行数
+     * @param convertExecutor   转换线程池
      * @return List<T>  对象集合
      * @author kun.tan
-     * @date 11:31 2022-08-01
+     * @date 10:30 2022-08-26
      */
-    private static <T> List<T> changeToObjList(Class<T> clazz, List<List<Object>> importExcelData, HashMap<String, Integer> columbMap
-            ,Integer ignoreStartRowNum, Integer dataStartRowNum,Integer ignoreEndRowNum) {
-        List<T> dtoList = new ArrayList<>();
-        if ((long) importExcelData.size() > dataStartRowNum) {
-            int i= dataStartRowNum - 1;
-            String annotationValue="";
-            try {
-                for (; i < (long) importExcelData.size() - ignoreEndRowNum; i++) {
-                    List<Object> row = importExcelData.get(i);
-                    T addDto = clazz.newInstance();
-                    for (Field field : getAllFields(clazz)) {
-                        field.setAccessible(true);
-                        annotationValue= field.getAnnotation(ApiModelProperty.class).value();
-                        if(columbMap.get(annotationValue)==null){
-                            continue;
-                        }
-                        if(field.getType().equals(BigDecimal.class)){
-                            field.set(addDto,  MathUtils.getBigDecimal(row.get(columbMap.get(annotationValue)).toString()));
-                        } else if(field.getType().equals(LocalDateTime.class)){
-                            field.set(addDto,  LocalDateTimeUtils.convertTimeStrToLocalDateTime(row.get(columbMap.get(annotationValue)).toString()));
-                        }else if(field.getType().equals(LocalDate.class)){
-                            field.set(addDto,  LocalDateTimeUtils.convertTimeStrToLocalDate(row.get(columbMap.get(annotationValue)).toString()));
-                        } else {
-                            field.set(addDto, row.get(columbMap.get(annotationValue)).toString());
-                        }
-
-                    }
-                    dtoList.add(addDto);
-                }
-            } catch (Exception e) {
-                throw new ApiException("导入数据解析错误：第"+ignoreStartRowNum+i+1+"行（"+annotationValue+" "+e.getMessage()+"）");
-            }
-        }
+    public static <T> List<T> getDataListFromExcelFile(HttpServletRequest request,Class<T> clazz,Integer ignoreStartRowNum,
+                                                       Integer columnsNameRowNum, Integer dataStartRowNum,Integer ignoreEndRowNum,
+                                                       Executor convertExecutor) throws FileUploadException,IOException{
+        FileItem fileItem = getFileItem(request);
+        ImportTrace trace = ImportTrace.start();
+        RowNums rowNums = new RowNums();
+        List<List<Object>> importExcelData= readDataList(fileItem, trace, rowNums);
+        ExcelHeaderResolver header = ExcelHeaderResolver.of(importExcelData, columnsNameRowNum, columnsNameRowNum);
+        List<T> dtoList = changeToObjListParallel(clazz, importExcelData, header, rowNums, dataStartRowNum, ignoreEndRowNum,
+                convertExecutor, trace);
+        trace.finish(dtoList.size());
         return dtoList;
     }
 
-    private static List<Field> getAllFields(Class clazz) {
-        List<Field> fields = new ArrayList<>();
-        if (clazz != null) {
-            fields = new ArrayList<>(Arrays.asList(clazz.getDeclaredFields()));
-            final List<Field> allFields = getAllFields(clazz.getSuperclass());
-            if (CollUtil.isNotEmpty(allFields)) {
-                fields.addAll(allFields);
-            }
-        }
-        return fields;
+    /**
+     * 根据文件url流式导入数据返回对象集合(.xlsx基于SAX逐行解析，不创建整个工作薄)
+     *
+     * @param clazz 对象类型
+     * @param fileName 文件名称
+     * @param fileUrl   文件地址
+     * @param ignoreStartRowNum   开头忽略的行数
+     * @param columnsNameRowNum   列名行号
+     * @param dataStartRowNum   数据开始行号
+     * @param ignoreEndRowNum   结尾忽略的行数
+     * @return List<T>  对象集合
+     * @author kun.tan
+     * @date 10:12 2022-08-15
+     */
+    public static <T> List<T> getDataListFromExcelFileUrlByStream(Class<T> clazz,String fileName,String fileUrl,Integer ignoreStartRowNum,
+                                                                  Integer columnsNameRowNum, Integer dataStartRowNum,Integer ignoreEndRowNum) throws IOException{
+        return getDataListFromExcelFileUrlByStream(clazz, fileName, fileUrl, ignoreStartRowNum, columnsNameRowNum, dataStartRowNum,
+                ignoreEndRowNum, new ExcelImportOptions());
     }
 
+    /**
+     * 根据文件url流式导入数据返回对象集合，解析线程只负责读行，行转对象分段交给线程池并行执行，结果保持原始行顺序
+     *
+     * @param clazz 对象类型
+     * @param fileName 文件名称
+     * @param fileUrl   文件地址
+     * @param ignoreStartRowNum   开头忽略的行数
+     * @param columnsNameRowNum   列名行号
+     * @param dataStartRowNum   数据开始行号
+     * @param ignoreEndRowNum   结尾忽略的行数
+     * @param convertExecutor   转换线程池，为null时逐行转换
+     * @return List<T>  对象集合
+     * @author kun.tan
+     * @date 10:30 2022-08-26
+     */
+    public static <T> List<T> getDataListFromExcelFileUrlByStream(Class<T> clazz,String fileName,String fileUrl,Integer ignoreStartRowNum,
+                                                                  Integer columnsNameRowNum, Integer dataStartRowNum,Integer ignoreEndRowNum,
+                                                                  Executor convertExecutor) throws IOException{
+        return getDataListFromExcelFileUrlByStream(clazz, fileName, fileUrl, ignoreStartRowNum, columnsNameRowNum, dataStartRowNum,
+                ignoreEndRowNum, new ExcelImportOptions().setConvertExecutor(convertExecutor));
+    }
 
     /**
-     * 根据url下载文件流
-     * @param urlStr
-     * @return
+     * 根据文件url流式导入数据返回对象集合，按导入选项只解析选中的sheet、行范围内的行以及目标类绑定的列
+     *
+     * @param clazz 对象类型
+     * @param fileName 文件名称
+     * @param fileUrl   文件地址
+     * @param ignoreStartRowNum   开头忽略的行数
+     * @param columnsNameRowNum   列名行号
+     * @param dataStartRowNum   数据开始行号
+     * @param ignoreEndRowNum   结尾忽略的行数
+     * @param options   导入选项
+     * @return List<T>  对象集合
+     * @author kun.tan
+     * @date 14:30 2022-09-26
      */
-    private static InputStream getInputStreamFromUrl(String urlStr) {
-        InputStream inputStream=null;
-        try {
-            //url解码
-            URL url = new URL(java.net.URLDecoder.decode(urlStr, "UTF-8"));
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            //设置超时间为3秒
-            conn.setConnectTimeout(3 * 1000);
-            //防止屏蔽程序抓取而返回403错误
-            conn.setRequestProperty("User-Agent", "Mozilla/4.0 (compatible; MSIE 5.0; Windows NT; DigExt)");
-            //得到输入流
-            inputStream = conn.getInputStream();
-        } catch (IOException e) {
+    public static <T> List<T> getDataListFromExcelFileUrlByStream(Class<T> clazz,String fileName,String fileUrl,Integer ignoreStartRowNum,
+                                                                  Integer columnsNameRowNum, Integer dataStartRowNum,Integer ignoreEndRowNum,
+                                                                  ExcelImportOptions options) throws IOException{
+        List<T> dtoList = new ArrayList<>();
+        readUrlFile(fileName, fileUrl, (name, file) -> readObjects(name, file, clazz,
+                columnsNameRowNum, dataStartRowNum, ignoreEndRowNum, dtoList::add, options));
+        return dtoList;
+    }
 
-        }
-        return inputStream;
+    /**
+     * 流式导入文件返回对象集合(.xlsx基于SAX逐行解析，不创建整个工作薄)
+     * @param request 请求体
+     * @param clazz 对象类型
+     * @param ignoreStartRowNum   开头忽略的行数
+     * @param columnsNameRowNum   列名行号
+     * @param dataStartRowNum   数据开始行号
+     * @param ignoreEndRowNum   结尾忽略的行数
+     * @return List<T>  对象集合
+     * @author kun.tan
+     * @date 10:12 2022-08-15
+     */
+    public static <T> List<T> getDataListFromExcelFileByStream(HttpServletRequest request,Class<T> clazz,Integer ignoreStartRowNum,
+                                                               Integer columnsNameRowNum, Integer dataStartRowNum,Integer ignoreEndRowNum) throws FileUploadException,IOException{
+        return getDataListFromExcelFileByStream(request, clazz, ignoreStartRowNum, columnsNameRowNum, dataStartRowNum, ignoreEndRowNum,
+                new ExcelImportOptions());
     }
 
+    /**
+     * 流式导入文件返回对象集合，解析线程只负责读行，行转对象分段交给线程池并行执行，结果保持原始行顺序
+     * @param request 请求体
+     * @param clazz 对象类型
+     * @param ignoreStartRowNum   开头忽略的行数
+     * @param columnsNameRowNum   列名行号
+     * @param dataStartRowNum   数据开始行号
+     * @param ignoreEndRowNum   结尾忽略的行数
+     * @param convertExecutor   转换线程池，为null时逐行转换
+     * @return List<T>  对象集合
+     * @author kun.tan
+     * @date 10:30 2022-08-26
+     */
+    public static <T> List<T> getDataListFromExcelFileByStream(HttpServletRequest request,Class<T> clazz,Integer ignoreStartRowNum,
+                                                               Integer columnsNameRowNum, Integer dataStartRowNum,Integer ignoreEndRowNum,
+                                                               Executor convertExecutor) throws FileUploadException,IOException{
+        return getDataListFromExcelFileByStream(request, clazz, ignoreStartRowNum, columnsNameRowNum, dataStartRowNum, ignoreEndRowNum,
+                new ExcelImportOptions().setConvertExecutor(convertExecutor));
+    }
 
+    /**
+     * 流式导入文件返回对象集合，按导入选项只解析选中的sheet、行范围内的行以及目标类绑定的列
+     * @param request 请求体
+     * @param clazz 对象类型
+     * @param ignoreStartRowNum   开头忽略的行数
+     * @param columnsNameRowNum   列名行号
+     * @param dataStartRowNum   数据开始行号
+     * @param ignoreEndRowNum   结尾忽略的行数
+     * @param options   导入选项
+     * @return List<T>  对象集合
+     * @author kun.tan
+     * @date 14:30 2022-09-26
+     */
+    public static <T> List<T> getDataListFromExcelFileByStream(HttpServletRequest request,Class<T> clazz,Integer ignoreStartRowNum,
+                                                               Integer columnsNameRowNum, Integer dataStartRowNum,Integer ignoreEndRowNum,
+                                                               ExcelImportOptions options) throws FileUploadException,IOException{
+        FileItem fileItem = getFileItem(request);
+        List<T> dtoList = new ArrayList<>();
+        readLocalFile(fileItem, (name, file) -> readObjects(name, file, clazz, columnsNameRowNum, dataStartRowNum,
+                ignoreEndRowNum, dtoList::add, options));
+        return dtoList;
+    }
 
+    /**
+     * 流式导入文件，每转换batchSize条数据回调一次，适合边解析边入库
+     * @param request 请求体
+     * @param clazz 对象类型
+     * @param ignoreStartRowNum   开头忽略的行数
+     * @param columnsNameRowNum   列名行号
+     * @param dataStartRowNum   数据开始行号
+     * @param ignoreEndRowNum   结尾忽略的行数
+     * @param batchSize   每批数据条数
+     * @param batchConsumer   每批数据的处理逻辑
+     * @author kun.tan
+     * @date 14:20 2022-08-16
+     */
+    public static <T> void readDataListFromExcelFile(HttpServletRequest request,Class<T> clazz,Integer ignoreStartRowNum,
+                                                     Integer columnsNameRowNum, Integer dataStartRowNum,Integer ignoreEndRowNum,
+                                                     int batchSize, Consumer<List<T>> batchConsumer) throws FileUploadException,IOException{
+        FileItem fileItem = getFileItem(request);
+        BatchConsumer<T> consumer = new BatchConsumer<>(batchSize, batchConsumer);
+        readLocalFile(fileItem, (name, file) -> readObjects(name, file, clazz, columnsNameRowNum, dataStartRowNum,
+                ignoreEndRowNum, consumer, new ExcelImportOptions()));
+        consumer.flush();
+    }
 
-    private static Workbook getWorkbook(FileItem fileItem) throws IOException {
-        Workbook work = null;
-        //1：验证文件格式
-        String fileName = fileItem.getName();
-        String fileType = fileName.substring(fileName.lastIndexOf('.'));
-        if (EXCEL_2003.equals(fileType)) {
-            work = new HSSFWorkbook(fileItem.getInputStream());
-        } else if (EXCEL_2007.equals(fileType)) {
-            work = new XSSFWorkbook(fileItem.getInputStream());
-        } else {
-            throw new ApiException("解析的文件有误");
-        }
-        return work;
+    /**
+     * 根据文件url流式导入数据，每转换batchSize条数据回调一次，适合边解析边入库
+     *
+     * @param clazz 对象类型
+     * @param fileName 文件名称
+     * @param fileUrl   文件地址
+     * @param ignoreStartRowNum   开头忽略的行数
+     * @param columnsNameRowNum   列名行号
+     * @param dataStartRowNum   数据开始行号
+     * @param ignoreEndRowNum   结尾忽略的行数
+     * @param batchSize   每批数据条数
+     * @param batchConsumer   每批数据的处理逻辑
+     * @author kun.tan
+     * @date 14:20 2022-08-16
+     */
+    public static <T> void readDataListFromExcelFileUrl(Class<T> clazz,String fileName,String fileUrl,Integer ignoreStartRowNum,
+                                                        Integer columnsNameRowNum, Integer dataStartRowNum,Integer ignoreEndRowNum,
+                                                        int batchSize, Consumer<List<T>> batchConsumer) throws IOException{
+        BatchConsumer<T> consumer = new BatchConsumer<>(batchSize, batchConsumer);
+        readUrlFile(fileName, fileUrl, (name, file) -> readObjects(name, file, clazz,
+                columnsNameRowNum, dataStartRowNum, ignoreEndRowNum, consumer, new ExcelImportOptions()));
+        consumer.flush();
     }
 
-    private static List<List<Object>> changeWorkToObjectList(Workbook work) {
-        List<List<Object>> list = new ArrayList<>();
-        Sheet sheet ;
-        Row row ;
-        Cell cell ;
-        //遍历Excel中所有的sheet
-        for (int i = 0; i < work.getNumberOfSheets(); i++) {
-            sheet = work.getSheetAt(i);
-            if (sheet == null) {
-                continue;
-            }
-            int addLineNum = 2;
-            //遍历当前sheet中的所有行
-            for (int j = sheet.getFirstRowNum()+ addLineNum ; j <= sheet.getLastRowNum(); j++) {
-                row = sheet.getRow(j);
-                if (row == null || row.getFirstCellNum() == j || isRowEmpty(row)) {
-                    continue;
-                }
-                //遍历所有的列
-                List<Object> li = new ArrayList<>();
-                for (int k = row.getFirstCellNum(); k < row.getLastCellNum(); k++) {
-                    cell = row.getCell(k);
-                    li.add(cell);
-                }
-                list.add(li);
-            }
-        }
-        return list;
+    /**
+     * 导入文件返回对象迭代器，后台线程边解析边转换，调用方须在try-with-resources中使用，中途放弃也要close
+     * @param request 请求体
+     * @param clazz 对象类型
+     * @param ignoreStartRowNum   开头忽略的行数
+     * @param columnsNameRowNum   列名行号
+     * @param dataStartRowNum   数据开始行号
+     * @param ignoreEndRowNum   结尾忽略的行数
+     * @return ExcelRowIterator<T>  对象迭代器
+     * @author kun.tan
+     * @date 14:20 2022-08-16
+     */
+    public static <T> ExcelRowIterator<T> getDataIteratorFromExcelFile(HttpServletRequest request,Class<T> clazz,Integer ignoreStartRowNum,
+                                                                       Integer columnsNameRowNum, Integer dataStartRowNum,Integer ignoreEndRowNum) throws FileUploadException{
+        // 请求体只能在请求线程中解析，文件内容交给后台线程
+        FileItem fileItem = getFileItem(request);
+        return new ExcelRowIterator<>(ITERATOR_BUFFER_SIZE, sink -> readLocalFile(fileItem, (name, file) -> readObjects(name, file,
+                clazz, columnsNameRowNum, dataStartRowNum, ignoreEndRowNum, sink, new ExcelImportOptions())));
     }
 
-    private static boolean isRowEmpty(Row row) {
-        for (int c = row.getFirstCellNum(); c < row.getLastCellNum(); c++) {
-            Cell cell = row.getCell(c);
-            if (cell != null && cell.getCellType() != BLANK) {
-                return false;
-            }
-        }
-        return true;
+    /**
+     * 根据文件url导入数据返回对象迭代器，后台线程边下载解析边转换，调用方须在try-with-resources中使用，中途放弃也要close
+     *
+     * @param clazz 对象类型
+     * @param fileName 文件名称
+     * @param fileUrl   文件地址
+     * @param ignoreStartRowNum   开头忽略的行数
+     * @param columnsNameRowNum   列名行号
+     * @param dataStartRowNum   数据开始行号
+     * @param ignoreEndRowNum   结尾忽略的行数
+     * @return ExcelRowIterator<T>  对象迭代器
+     * @author kun.tan
+     * @date 14:20 2022-08-16
+     */
+    public static <T> ExcelRowIterator<T> getDataIteratorFromExcelFileUrl(Class<T> clazz,String fileName,String fileUrl,Integer ignoreStartRowNum,
+                                                                          Integer columnsNameRowNum, Integer dataStartRowNum,Integer ignoreEndRowNum) {
+        return new ExcelRowIterator<>(ITERATOR_BUFFER_SIZE, sink -> readUrlFile(fileName, fileUrl,
+                (name, file) -> readObjects(name, file, clazz, columnsNameRowNum, dataStartRowNum, ignoreEndRowNum,
+                        sink, new ExcelImportOptions())));
+    }
+
+    /**
+     * 多sheet并行导入文件返回对象集合，每个sheet按相同的行号规则独立解析，结果按sheet顺序合并
+     * @param request 请求体
+     * @param clazz 对象类型
+     * @param ignoreStartRowNum   开头忽略的行数
+     * @param columnsNameRowNum   列名行号(每个sheet内)
+     * @param dataStartRowNum   数据开始行号(每个sheet内)
+     * @param ignoreEndRowNum   结尾忽略的行数(每个sheet内)
+     * @param executor   解析sheet的线程池，如ForkJoinPool.commonPool()；.xls只能顺序读取，在调用线程中逐个sheet解析
+     * @return List<T>  对象集合
+     * @author kun.tan
+     * @date 16:05 2022-08-24
+     */
+    public static <T> List<T> getDataListFromExcelFileParallel(HttpServletRequest request,Class<T> clazz,Integer ignoreStartRowNum,
+                                                               Integer columnsNameRowNum, Integer dataStartRowNum,Integer ignoreEndRowNum,
+                                                               Executor executor) throws FileUploadException,IOException{
+        FileItem fileItem = getFileItem(request);
+        List<T> dtoList = new ArrayList<>();
+        readLocalFile(fileItem, (name, file) -> readObjectsBySheet(name, file, clazz, columnsNameRowNum,
+                dataStartRowNum, ignoreEndRowNum, dtoList::add, executor));
+        return dtoList;
     }
 
+    /**
+     * 根据文件url多sheet并行导入数据返回对象集合，每个sheet按相同的行号规则独立解析，结果按sheet顺序合并
+     *
+     * @param clazz 对象类型
+     * @param fileName 文件名称
+     * @param fileUrl   文件地址
+     * @param ignoreStartRowNum   开头忽略的行数
+     * @param columnsNameRowNum   列名行号(每个sheet内)
+     * @param dataStartRowNum   数据开始行号(每个sheet内)
+     * @param ignoreEndRowNum   结尾忽略的行数(每个sheet内)
+     * @param executor   解析sheet的线程池，如ForkJoinPool.commonPool()；.xls只能顺序读取，在调用线程中逐个sheet解析
+     * @return List<T>  对象集合
+     * @author kun.tan
+     * @date 16:05 2022-08-24
+     */
+    public static <T> List<T> getDataListFromExcelFileUrlParallel(Class<T> clazz,String fileName,String fileUrl,Integer ignoreStartRowNum,
+                                                                  Integer columnsNameRowNum, Integer dataStartRowNum,Integer ignoreEndRowNum,
+                                                                  Executor executor) throws IOException{
+        List<T> dtoList = new ArrayList<>();
+        readUrlFile(fileName, fileUrl, (name, file) -> readObjectsBySheet(name, file, clazz,
+                columnsNameRowNum, dataStartRowNum, ignoreEndRowNum, dtoList::add, executor));
+        return dtoList;
+    }
+
+    /**
+     * 根据文件url异步导入数据返回对象集合，下载与解析在下载器的有界线程池中执行，不阻塞调用线程
+     *
+     * @param clazz 对象类型
+     * @param fileName 文件名称
+     * @param fileUrl   文件地址
+     * @param ignoreStartRowNum   开头忽略的行数
+     * @param columnsNameRowNum   列名行号
+     * @param dataStartRowNum   数据开始行号
+     * @param ignoreEndRowNum   结尾忽略的行数
+     * @param fetcher   文件下载器(超时、大小限制、重试、线程池)
+     * @return CompletableFuture<List<T>>  对象集合
+     * @author kun.tan
+     * @date 9:40 2022-09-01
+     */
+    public static <T> CompletableFuture<List<T>> getDataListFromExcelFileUrlAsync(Class<T> clazz,String fileName,String fileUrl,Integer ignoreStartRowNum,
+                                                                                  Integer columnsNameRowNum, Integer dataStartRowNum,Integer ignoreEndRowNum,
+                                                                                  ExcelFileFetcher fetcher) {
+        return fetcher.fetchAsync(fileUrl, getFileType(fileName)).thenApply(file -> {
+            try {
+                List<T> dtoList = new ArrayList<>();
+                readObjects(fileName, file, clazz, columnsNameRowNum, dataStartRowNum, ignoreEndRowNum, dtoList::add,
+                        new ExcelImportOptions());
+                return dtoList;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            } finally {
+                file.delete();
+            }
+        });
+    }
+
+    /**
+     * 导入文件并校验：一次解析检查全部行，单元格转换失败或业务校验不通过时记录错误继续检查，不中断导入；
+     * 错误定位到sheet、excel行号、列
+     * @param request 请求体
+     * @param clazz 对象类型
+     * @param ignoreStartRowNum   开头忽略的行数
+     * @param columnsNameRowNum   列名行号
+     * @param dataStartRowNum   数据开始行号
+     * @param ignoreEndRowNum   结尾忽略的行数
+     * @param validator   业务校验，为null时只校验单元格转换
+     * @param maxErrors   错误明细和未通过的行最多保留的条数
+     * @return ExcelImportResult<T>  校验通过的对象、未通过的行及错误明细
+     * @author kun.tan
+     * @date 15:10 2022-09-20
+     */
+    public static <T> ExcelImportResult<T> validateDataListFromExcelFile(HttpServletRequest request,Class<T> clazz,Integer ignoreStartRowNum,
+                                                                         Integer columnsNameRowNum, Integer dataStartRowNum,Integer ignoreEndRowNum,
+                                                                         ExcelRowValidator<? super T> validator, int maxErrors) throws FileUploadException,IOException{
+        return validateDataListFromExcelFile(request, clazz, ignoreStartRowNum, columnsNameRowNum, dataStartRowNum, ignoreEndRowNum, validator,
+                maxErrors, new ExcelImportOptions());
+    }
+
+    /**
+     * 导入文件并校验，按导入选项选择sheet、行范围、列，设置转换线程池时行检查分段并行执行，结果保持原始行顺序
+     * @param request 请求体
+     * @param clazz 对象类型
+     * @param ignoreStartRowNum   开头忽略的行数
+     * @param columnsNameRowNum   列名行号
+     * @param dataStartRowNum   数据开始行号
+     * @param ignoreEndRowNum   结尾忽略的行数
+     * @param validator   业务校验，为null时只校验单元格转换；并行时会在多个线程中调用
+     * @param maxErrors   错误明细和未通过的行最多保留的条数
+     * @param options   导入选项，需要完整的未通过校验的行时关闭列投影
+     * @return ExcelImportResult<T>  校验通过的对象、未通过的行及错误明细
+     * @author kun.tan
+     * @date 15:10 2022-09-20
+     */
+    public static <T> ExcelImportResult<T> validateDataListFromExcelFile(HttpServletRequest request,Class<T> clazz,Integer ignoreStartRowNum,
+                                                                         Integer columnsNameRowNum, Integer dataStartRowNum,Integer ignoreEndRowNum,
+                                                                         ExcelRowValidator<? super T> validator, int maxErrors,
+                                                                         ExcelImportOptions options) throws FileUploadException,IOException{
+        FileItem fileItem = getFileItem(request);
+        List<ExcelImportResult<T>> results = new ArrayList<>(1);
+        readLocalFile(fileItem, (name, file) -> results.add(validateObjects(name, file, clazz, columnsNameRowNum, dataStartRowNum,
+                ignoreEndRowNum, validator, maxErrors, options)));
+        return results.get(0);
+    }
+
+    /**
+     * 根据文件url导入数据并校验：一次解析检查全部行，单元格转换失败或业务校验不通过时记录错误继续检查，不中断导入；
+     * 错误定位到sheet、excel行号、列
+     *
+     * @param clazz 对象类型
+     * @param fileName 文件名称
+     * @param fileUrl   文件地址
+     * @param ignoreStartRowNum   开头忽略的行数
+     * @param columnsNameRowNum   列名行号
+     * @param dataStartRowNum   数据开始行号
+     * @param ignoreEndRowNum   结尾忽略的行数
+     * @param validator   业务校验，为null时只校验单元格转换
+     * @param maxErrors   错误明细和未通过的行最多保留的条数
+     * @return ExcelImportResult<T>  校验通过的对象、未通过的行及错误明细
+     * @author kun.tan
+     * @date 15:10 2022-09-20
+     */
+    public static <T> ExcelImportResult<T> validateDataListFromExcelFileUrl(Class<T> clazz,String fileName,String fileUrl,Integer ignoreStartRowNum,
+                                                                            Integer columnsNameRowNum, Integer dataStartRowNum,Integer ignoreEndRowNum,
+                                                                            ExcelRowValidator<? super T> validator, int maxErrors) throws IOException{
+        return validateDataListFromExcelFileUrl(clazz, fileName, fileUrl, ignoreStartRowNum, columnsNameRowNum, dataStartRowNum,
+                ignoreEndRowNum, validator, maxErrors, new ExcelImportOptions());
+    }
+
+    /**
+     * 根据文件url导入数据并校验，按导入选项选择sheet、行范围、列，设置转换线程池时行检查分段并行执行，结果保持原始行顺序
+     *
+     * @param clazz 对象类型
+     * @param fileName 文件名称
+     * @param fileUrl   文件地址
+     * @param ignoreStartRowNum   开头忽略的行数
+     * @param columnsNameRowNum   列名行号
+     * @param dataStartRowNum   数据开始行号
+     * @param ignoreEndRowNum   结尾忽略的行数
+     * @param validator   业务校验，为null时只校验单元格转换；并行时会在多个线程中调用
+     * @param maxErrors   错误明细和未通过的行最多保留的条数
+     * @param options   导入选项，需要完整的未通过校验的行时关闭列投影
+     * @return ExcelImportResult<T>  校验通过的对象、未通过的行及错误明细
+     * @author kun.tan
+     * @date 15:10 2022-09-20
+     */
+    public static <T> ExcelImportResult<T> validateDataListFromExcelFileUrl(Class<T> clazz,String fileName,String fileUrl,Integer ignoreStartRowNum,
+                                                                            Integer columnsNameRowNum, Integer dataStartRowNum,Integer ignoreEndRowNum,
+                                                                            ExcelRowValidator<? super T> validator, int maxErrors,
+                                                                            ExcelImportOptions options) throws IOException{
+        List<ExcelImportResult<T>> results = new ArrayList<>(1);
+        readUrlFile(fileName, fileUrl, (name, file) -> results.add(validateObjects(name, file, clazz, columnsNameRowNum,
+                dataStartRowNum, ignoreEndRowNum, validator, maxErrors, options)));
+        return results.get(0);
+    }
+
+    /**
+     * 导入数据转对象集合
+     *
+     * @param clazz 对象类型
+     * @param importExcelData 解析的数据集合
+     * @param header   表头
+     * @param rowNums   每行在excel中的行号，用于定位转换失败的行
+     * @param dataStartRowNum   数据开始行号
+     * @param ignoreEndRowNum   结尾忽略的行数
+     * @return List<T>  对象集合
+     * @author kun.tan
+     * @date 11:31 2022-08-01
+     */
+    private static <T> List<T> changeToObjList(Class<T> clazz, List<List<Object>> importExcelData, ExcelHeaderResolver header
+            ,RowNums rowNums, Integer dataStartRowNum,Integer ignoreEndRowNum, ImportTrace trace) {
+        List<T> dtoList = new ArrayList<>();
+        if ((long) importExcelData.size() > dataStartRowNum) {
+            long convertStart = trace.time();
+            ExcelBindingPlan<T> bindingPlan = ExcelBindingPlan.of(clazz, header);
+            int i= dataStartRowNum - 1;
+            try {
+                for (; i < (long) importExcelData.size() - ignoreEndRowNum; i++) {
+                    dtoList.add(bindingPlan.bind(importExcelData.get(i)));
+                }
+            } catch (Exception e) {
+                throw rowError(rowNums.get(i), e);
+            }
+            trace.converted(convertStart);
+        }
+        return dtoList;
+    }
+
+
+    /**
+     * 导入数据并行转对象集合，按PARALLEL_CONVERT_CHUNK_SIZE行分段交给线程池，结果保持原始行顺序
+     *
+     * @param clazz 对象类型
+     * @param importExcelData 解析的数据集合
+     * @param header   表头
+     * @param rowNums   每行在excel中的行号，用于定位转换失败的行
+     * @param dataStartRowNum   数据开始行号
+     * @param ignoreEndRowNum   结尾忽略的行数
+     * @param executor   转换线程池
+     * @param trace   指标收集
+     * @return List<T>  对象集合
+     * @author kun.tan
+     * @date 10:30 2022-08-26
+     */
+    private static <T> List<T> changeToObjListParallel(Class<T> clazz, List<List<Object>> importExcelData, ExcelHeaderResolver header,
+                                                       RowNums rowNums, Integer dataStartRowNum, Integer ignoreEndRowNum,
+                                                       Executor executor, ImportTrace trace) {
+        List<T> dtoList = new ArrayList<>();
+        if ((long) importExcelData.size() <= dataStartRowNum) {
+            return dtoList;
+        }
+        ExcelBindingPlan<T> bindingPlan = ExcelBindingPlan.of(clazz, header);
+        int endIndex = importExcelData.size() - ignoreEndRowNum;
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>();
+        for (int from = dataStartRowNum - 1; from < endIndex; from += PARALLEL_CONVERT_CHUNK_SIZE) {
+            List<SourceRow> rows = new ArrayList<>(PARALLEL_CONVERT_CHUNK_SIZE);
+            for (int i = from; i < Math.min(from + PARALLEL_CONVERT_CHUNK_SIZE, endIndex); i++) {
+                rows.add(new SourceRow(null, rowNums.get(i), importExcelData.get(i)));
+            }
+            futures.add(CompletableFuture.supplyAsync(() -> convertRows(bindingPlan, rows, trace), executor));
+        }
+        for (CompletableFuture<List<T>> future : futures) {
+            try {
+                dtoList.addAll(future.join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof RuntimeException ? (RuntimeException) cause : new ApiException("导入数据解析错误");
+            }
+        }
+        return dtoList;
+    }
+
+    /**
+     * 转换一段连续的行
+     *
+     * @param bindingPlan 字段绑定计划
+     * @param rows 行数据及行号
+     * @param trace 指标收集
+     * @return List<T>  对象集合
+     */
+    private static <T> List<T> convertRows(ExcelBindingPlan<T> bindingPlan, List<SourceRow> rows, ImportTrace trace) {
+        long convertStart = trace.time();
+        List<T> dtoList = new ArrayList<>(rows.size());
+        for (SourceRow row : rows) {
+            try {
+                dtoList.add(bindingPlan.bind(row.values));
+            } catch (Exception e) {
+                throw rowError(row.rowNum, e);
+            }
+        }
+        trace.converted(convertStart);
+        return dtoList;
+    }
+
+    /**
+     * 转换失败的行
+     *
+     * @param rowNum excel中的行号(从1开始)
+     * @param e 转换异常
+     */
+    private static ApiException rowError(int rowNum, Exception e) {
+        return new ApiException("导入数据解析错误：第" + rowNum + "行（" + e.getMessage() + "）");
+    }
+
+    private static Workbook getWorkbook(FileItem fileItem) throws IOException {
+        Workbook work = null;
+        //1：验证文件格式
+        String fileName = fileItem.getName();
+        String fileType = fileName.substring(fileName.lastIndexOf('.'));
+        if (EXCEL_2003.equals(fileType)) {
+            work = new HSSFWorkbook(fileItem.getInputStream());
+        } else if (EXCEL_2007.equals(fileType)) {
+            work = new XSSFWorkbook(fileItem.getInputStream());
+        } else {
+            throw new ApiException("解析的文件有误");
+        }
+        return work;
+    }
+
+    private static FileItem getFileItem(HttpServletRequest request) throws FileUploadException {
+        DiskFileItemFactory factory = new DiskFileItemFactory();
+        // 设置缓冲区大小，这里是4kb
+        factory.setSizeThreshold(4096);
+        ServletFileUpload upload = new ServletFileUpload(factory);
+        // 解决文件名称乱码
+        upload.setHeaderEncoding("utf-8");
+        List<FileItem> itemsList = upload.parseRequest(request);
+
+        if (CollectionUtils.isEmpty(itemsList)) {
+            throw new ApiException("请选择文件");
+        }
+        return itemsList.get(0);
+    }
+
+    /**
+     * 获取本地文件后执行解析：上传组件已落盘的文件直接使用，不再读出流重新拷贝；解析完成后删除上传的临时文件
+     *
+     * @param fileItem 上传文件
+     * @param task 解析逻辑
+     */
+    private static void readLocalFile(FileItem fileItem, LocalFileTask task) throws IOException {
+        try {
+            File storeFile = fileItem instanceof DiskFileItem && !fileItem.isInMemory() ? ((DiskFileItem) fileItem).getStoreLocation() : null;
+            if (storeFile != null && storeFile.isFile()) {
+                getFileType(fileItem.getName());
+                task.read(fileItem.getName(), storeFile);
+            } else {
+                readLocalFile(fileItem.getName(), fileItem.getInputStream(), task);
+            }
+        } finally {
+            fileItem.delete();
+        }
+    }
+
+    /**
+     * 文件流写入临时文件后执行解析，解析完成后删除临时文件
+     *
+     * @param fileName 文件名（带后缀）
+     * @param fileStream 文件流，写入临时文件后关闭
+     * @param task 解析逻辑
+     */
+    private static void readLocalFile(String fileName, InputStream fileStream, LocalFileTask task) throws IOException {
+        File tempFile = File.createTempFile("excel-import", getFileType(fileName));
+        try (InputStream in = fileStream) {
+            Files.copy(in, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            task.read(fileName, tempFile);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    /**
+     * 根据url下载到临时文件后执行解析(失败按下载器配置重试)，解析完成后删除临时文件
+     *
+     * @param fileName 文件名（带后缀）
+     * @param fileUrl 文件地址
+     * @param task 解析逻辑
+     */
+    private static void readUrlFile(String fileName, String fileUrl, LocalFileTask task) throws IOException {
+        File tempFile = DEFAULT_FETCHER.fetch(fileUrl, getFileType(fileName));
+        try {
+            task.read(fileName, tempFile);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    /**
+     * 获取文件后缀并校验文件格式
+     *
+     * @param fileName 文件名（带后缀）
+     * @return .xls / .xlsx / .csv
+     */
+    private static String getFileType(String fileName) {
+        String fileType = fileName.substring(fileName.lastIndexOf('.'));
+        if (!EXCEL_2003.equals(fileType) && !EXCEL_2007.equals(fileType) && !CSV.equalsIgnoreCase(fileType)) {
+            throw new ApiException("解析的文件有误");
+        }
+        return fileType;
+    }
+
+    private static boolean isCsv(String fileName) {
+        return CSV.equalsIgnoreCase(getFileType(fileName));
+    }
+
+    /**
+     * 逐行解析本地文件：.xlsx按SAX解析，不创建XSSFWorkbook；.xls按HSSF事件模型解析，不创建HSSFWorkbook
+     *
+     * @param fileName 文件名（带后缀）
+     * @param file 本地文件
+     * @param options 导入选项
+     * @param listener 行回调
+     */
+    private static void readRows(String fileName, File file, ExcelImportOptions options, ExcelRowListener listener) throws IOException {
+        if (isCsv(fileName)) {
+            ExcelCsvReader.read(file, options, listener);
+        } else if (EXCEL_2003.equals(getFileType(fileName))) {
+            ExcelXlsStreamReader.read(file, options, listener);
+        } else {
+            ExcelXlsxStreamReader.read(file, options, listener);
+        }
+    }
+
+    /**
+     * 逐行解析文件并转换为对象，每转换一条回调一次
+     *
+     * @param fileName 文件名（带后缀）
+     * @param file 本地文件
+     * @param consumer 对象回调
+     * @param options 导入选项，未设置转换线程池时在解析线程中逐行转换
+     */
+    static <T> void readObjects(String fileName, File file, Class<T> clazz,
+                                Integer columnsNameRowNum, Integer dataStartRowNum, Integer ignoreEndRowNum,
+                                Consumer<T> consumer, ExcelImportOptions options) throws IOException {
+        ImportTrace trace = ImportTrace.start();
+        trace.bytesRead(file.length());
+        Executor convertExecutor = options.getConvertExecutor();
+        int headerEndRowNum = options.getHeaderEndRowNum(columnsNameRowNum, dataStartRowNum);
+        RowToObjConverter<T> converter = convertExecutor == null
+                ? new RowToObjConverter<>(clazz, columnsNameRowNum, headerEndRowNum, dataStartRowNum, ignoreEndRowNum, consumer,
+                options.isProjectColumns())
+                : new ParallelRowToObjConverter<>(clazz, columnsNameRowNum, headerEndRowNum, dataStartRowNum, ignoreEndRowNum, consumer,
+                options.isProjectColumns(), convertExecutor, trace);
+        trace.opening();
+        readRows(fileName, file, options, trace.listen(converter, convertExecutor == null));
+        trace.rowsRead();
+        converter.finish();
+        trace.finish(converter.getConvertedCount());
+    }
+
+    /**
+     * 逐行解析文件并校验转换
+     *
+     * @param fileName 文件名（带后缀）
+     * @param file 本地文件
+     * @param validator 业务校验
+     * @param maxErrors 错误明细最多保留的条数
+     * @param options 导入选项，未设置转换线程池时在解析线程中逐行检查
+     * @return ExcelImportResult<T>
+     */
+    static <T> ExcelImportResult<T> validateObjects(String fileName, File file, Class<T> clazz, Integer columnsNameRowNum,
+                                                    Integer dataStartRowNum, Integer ignoreEndRowNum,
+                                                    ExcelRowValidator<? super T> validator, int maxErrors,
+                                                    ExcelImportOptions options) throws IOException {
+        if (maxErrors <= 0) {
+            throw new ApiException("maxErrors必须大于0");
+        }
+        ImportTrace trace = ImportTrace.start();
+        trace.bytesRead(file.length());
+        Executor convertExecutor = options.getConvertExecutor();
+        ValidatingConverter<T> converter = new ValidatingConverter<>(clazz, columnsNameRowNum,
+                options.getHeaderEndRowNum(columnsNameRowNum, dataStartRowNum), dataStartRowNum, ignoreEndRowNum, validator, maxErrors,
+                options.isProjectColumns(), convertExecutor, trace);
+        trace.opening();
+        readRows(fileName, file, options, trace.listen(converter, convertExecutor == null));
+        trace.rowsRead();
+        ExcelImportResult<T> result = converter.finish();
+        trace.finish(result.getValidRows().size());
+        return result;
+    }
+
+    /**
+     * 按sheet并行解析文件并转换为对象，全部sheet完成后按sheet顺序回调
+     *
+     * @param fileName 文件名（带后缀）
+     * @param file 本地文件
+     * @param consumer 对象回调
+     * @param executor 解析sheet的线程池，.xls不使用
+     */
+    static <T> void readObjectsBySheet(String fileName, File file, Class<T> clazz,
+                                       Integer columnsNameRowNum, Integer dataStartRowNum, Integer ignoreEndRowNum,
+                                       Consumer<T> consumer, Executor executor) throws IOException {
+        ImportTrace trace = ImportTrace.start();
+        trace.bytesRead(file.length());
+        ExcelImportOptions options = new ExcelImportOptions();
+        // 回调工厂在调用线程中按sheet顺序调用
+        List<List<T>> sheetDtoLists = new ArrayList<>();
+        IntFunction<ExcelRowListener> listenerFactory = sheetIndex -> {
+            List<T> sheetDtoList = new ArrayList<>();
+            sheetDtoLists.add(sheetDtoList);
+            return trace.listen(new SheetScopedListener(new RowToObjConverter<>(clazz, columnsNameRowNum,
+                    options.getHeaderEndRowNum(columnsNameRowNum, dataStartRowNum), dataStartRowNum, ignoreEndRowNum, sheetDtoList::add,
+                    options.isProjectColumns())), true);
+        };
+        trace.opening();
+        if (isCsv(fileName)) {
+            // csv只有一个sheet，直接在调用线程中解析
+            ExcelCsvReader.read(file, options, listenerFactory.apply(0));
+        } else if (EXCEL_2003.equals(getFileType(fileName))) {
+            // .xls的记录流只能顺序读取，在调用线程中逐个sheet解析，每个sheet一个回调
+            ExcelXlsStreamReader.read(file, options, new PerSheetListener(listenerFactory));
+        } else {
+            ExcelXlsxStreamReader.readParallel(file, options, executor, listenerFactory);
+        }
+        trace.rowsRead();
+        long objects = 0;
+        for (List<T> sheetDtoList : sheetDtoLists) {
+            sheetDtoList.forEach(consumer);
+            objects += sheetDtoList.size();
+        }
+        trace.finish(objects);
+    }
+
+    /**
+     * 等待全部任务结束，再按提交顺序抛出第一个异常(避免其他任务仍在读取时文件被关闭)
+     *
+     * @param futures 任务
+     */
+    static void joinAll(List<CompletableFuture<Void>> futures) {
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).exceptionally(e -> null).join();
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof RuntimeException ? (RuntimeException) cause : new ApiException("解析的文件有误");
+            }
+        }
+    }
+
+    private static List<List<Object>> changeWorkToObjectList(Workbook work, ImportTrace trace, IntConsumer rowNums) {
+        List<List<Object>> list = new ArrayList<>();
+        readWorkbook(work, trace.listen((sheetIndex, rowNum, row) -> {
+            list.add(row);
+            rowNums.accept(rowNum);
+        }, false));
+        trace.rowsRead();
+        return list;
+    }
+
+    private static void readWorkbook(Workbook work, ExcelRowListener listener) {
+        //遍历Excel中所有的sheet
+        for (int i = 0; i < work.getNumberOfSheets(); i++) {
+            readSheet(work, i, listener);
+        }
+    }
+
+    private static void readSheet(Workbook work, int sheetIndex, ExcelRowListener listener) {
+        Sheet sheet = work.getSheetAt(sheetIndex);
+        Row row ;
+        Cell cell ;
+        if (sheet == null) {
+            return;
+        }
+        listener.onSheetStart(sheetIndex, sheet.getSheetName());
+        //遍历当前sheet中的所有行
+        for (int j = sheet.getFirstRowNum()+ IGNORE_SHEET_HEAD_ROW_NUM ; j <= sheet.getLastRowNum(); j++) {
+            row = sheet.getRow(j);
+            if (row == null || row.getFirstCellNum() == j || isRowEmpty(row)) {
+                continue;
+            }
+            //遍历所有的列
+            List<Object> li = new ArrayList<>();
+            for (int k = row.getFirstCellNum(); k < row.getLastCellNum(); k++) {
+                cell = row.getCell(k);
+                li.add(cell);
+            }
+            listener.onRow(sheetIndex, j, li);
+        }
+    }
+
+    private static boolean isRowEmpty(Row row) {
+        for (int c = row.getFirstCellNum(); c < row.getLastCellNum(); c++) {
+            Cell cell = row.getCell(c);
+            if (cell != null && cell.getCellType() != BLANK) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 流式行数据转对象：按行号定位表头行(列名行到headerEndRowNum)、数据起始行，并缓存末尾ignoreEndRowNum行以便忽略结尾行
+     */
+    private static class RowToObjConverter<T> implements ExcelRowListener {
+
+        private final Class<T> clazz;
+        private final int columnsNameRowNum;
+        private final int headerEndRowNum;
+        private final int dataStartRowNum;
+        private final int ignoreEndRowNum;
+        final Consumer<T> consumer;
+        private final boolean projectColumns;
+        private final Deque<SourceRow> endRows = new ArrayDeque<>();
+        private final List<List<Object>> headerRows = new ArrayList<>();
+        ExcelBindingPlan<T> bindingPlan;
+        private int rowIndex;
+        private int convertedCount;
+
+        RowToObjConverter(Class<T> clazz, Integer columnsNameRowNum, int headerEndRowNum, Integer dataStartRowNum, Integer ignoreEndRowNum,
+                          Consumer<T> consumer, boolean projectColumns) {
+            this.clazz = clazz;
+            this.columnsNameRowNum = columnsNameRowNum;
+            this.headerEndRowNum = headerEndRowNum;
+            this.dataStartRowNum = dataStartRowNum;
+            this.ignoreEndRowNum = ignoreEndRowNum;
+            this.consumer = consumer;
+            this.projectColumns = projectColumns;
+        }
+
+        /**
+         * 表头解析前读取全部列，之后只读取绑定的列
+         */
+        @Override
+        public boolean isColumnRequired(int columnIndex) {
+            return !projectColumns || bindingPlan == null || bindingPlan.isColumnBound(columnIndex);
+        }
+
+        @Override
+        public void onRow(int sheetIndex, int rowNum, List<Object> row) {
+            rowIndex++;
+            if (rowIndex >= columnsNameRowNum && rowIndex <= headerEndRowNum) {
+                headerRows.add(row);
+            }
+            if (rowIndex < dataStartRowNum) {
+                return;
+            }
+            if (bindingPlan == null) {
+                bindingPlan = ExcelBindingPlan.of(clazz, ExcelHeaderResolver.of(headerRows));
+            }
+            endRows.addLast(new SourceRow(null, rowNum + 1, row));
+            if (endRows.size() <= ignoreEndRowNum) {
+                return;
+            }
+            convertedCount++;
+            convert(endRows.pollFirst());
+        }
+
+        /**
+         * 转换一行数据
+         *
+         * @param row 行数据及excel中的行号
+         */
+        void convert(SourceRow row) {
+            try {
+                consumer.accept(bindingPlan.bind(row.values));
+            } catch (Exception e) {
+                throw rowError(row.rowNum, e);
+            }
+        }
+
+        /**
+         * 全部行读取完成
+         */
+        void finish() {
+            //do nothing
+        }
+
+        /**
+         * 已转换(并行时为已提交转换)的行数
+         */
+        int getConvertedCount() {
+            return convertedCount;
+        }
+    }
+
+    /**
+     * 并行转换：攒够一批行后交给线程池转换，解析与转换同时进行，finish时按原始顺序输出
+     */
+    private static class ParallelRowToObjConverter<T> extends RowToObjConverter<T> {
+
+        private final Executor executor;
+        private final ImportTrace trace;
+        private final List<CompletableFuture<List<T>>> futures = new ArrayList<>();
+        private List<SourceRow> chunk = new ArrayList<>(PARALLEL_CONVERT_CHUNK_SIZE);
+
+        ParallelRowToObjConverter(Class<T> clazz, Integer columnsNameRowNum, int headerEndRowNum, Integer dataStartRowNum,
+                                  Integer ignoreEndRowNum, Consumer<T> consumer, boolean projectColumns, Executor executor, ImportTrace trace) {
+            super(clazz, columnsNameRowNum, headerEndRowNum, dataStartRowNum, ignoreEndRowNum, consumer, projectColumns);
+            this.executor = executor;
+            this.trace = trace;
+        }
+
+        @Override
+        void convert(SourceRow row) {
+            chunk.add(row);
+            if (chunk.size() >= PARALLEL_CONVERT_CHUNK_SIZE) {
+                submitChunk();
+            }
+        }
+
+        @Override
+        void finish() {
+            if (!chunk.isEmpty()) {
+                submitChunk();
+            }
+            for (CompletableFuture<List<T>> future : futures) {
+                try {
+                    future.join().forEach(consumer);
+                } catch (CompletionException e) {
+                    Throwable cause = e.getCause();
+                    throw cause instanceof RuntimeException ? (RuntimeException) cause : new ApiException("导入数据解析错误");
+                }
+            }
+        }
+
+        private void submitChunk() {
+            List<SourceRow> rows = chunk;
+            ExcelBindingPlan<T> plan = bindingPlan;
+            futures.add(CompletableFuture.supplyAsync(() -> convertRows(plan, rows, trace), executor));
+            chunk = new ArrayList<>(PARALLEL_CONVERT_CHUNK_SIZE);
+        }
+    }
+
+    /**
+     * 校验转换：与RowToObjConverter按相同的行号规则定位数据行，单元格转换失败或业务校验不通过时记录错误继续检查；
+     * 设置线程池时攒够PARALLEL_CONVERT_CHUNK_SIZE行交给线程池检查，finish时按原始顺序合并各段结果
+     */
+    private static class ValidatingConverter<T> implements ExcelRowListener {
+
+        private final Class<T> clazz;
+        private final int columnsNameRowNum;
+        private final int headerEndRowNum;
+        private final int dataStartRowNum;
+        private final int ignoreEndRowNum;
+        private final ExcelRowValidator<? super T> validator;
+        private final int maxErrors;
+        private final boolean projectColumns;
+        private final Executor executor;
+        private final ImportTrace trace;
+        private final ExcelImportResult<T> result;
+        private final Deque<SourceRow> endRows = new ArrayDeque<>();
+        private final List<List<Object>> headerRows = new ArrayList<>();
+        private final List<CompletableFuture<ExcelImportResult<T>>> futures = new ArrayList<>();
+        private List<SourceRow> chunk = new ArrayList<>();
+        private ExcelBindingPlan<T> bindingPlan;
+        private String sheetName;
+        private int rowIndex;
+
+        ValidatingConverter(Class<T> clazz, Integer columnsNameRowNum, int headerEndRowNum, Integer dataStartRowNum, Integer ignoreEndRowNum,
+                            ExcelRowValidator<? super T> validator, int maxErrors, boolean projectColumns, Executor executor,
+                            ImportTrace trace) {
+            this.clazz = clazz;
+            this.columnsNameRowNum = columnsNameRowNum;
+            this.headerEndRowNum = headerEndRowNum;
+            this.dataStartRowNum = dataStartRowNum;
+            this.ignoreEndRowNum = ignoreEndRowNum;
+            this.validator = validator;
+            this.maxErrors = maxErrors;
+            this.projectColumns = projectColumns;
+            this.executor = executor;
+            this.trace = trace;
+            this.result = new ExcelImportResult<>(maxErrors);
+        }
+
+        @Override
+        public void onSheetStart(int sheetIndex, String sheetName) {
+            this.sheetName = sheetName;
+        }
+
+        @Override
+        public boolean isColumnRequired(int columnIndex) {
+            return !projectColumns || bindingPlan == null || bindingPlan.isColumnBound(columnIndex);
+        }
+
+        @Override
+        public void onRow(int sheetIndex, int rowNum, List<Object> row) {
+            rowIndex++;
+            if (rowIndex >= columnsNameRowNum && rowIndex <= headerEndRowNum) {
+                headerRows.add(row);
+            }
+            if (rowIndex < dataStartRowNum) {
+                return;
+            }
+            if (bindingPlan == null) {
+                bindingPlan = ExcelBindingPlan.of(clazz, ExcelHeaderResolver.of(headerRows));
+            }
+            endRows.addLast(new SourceRow(sheetName, rowNum + 1, row));
+            if (endRows.size() <= ignoreEndRowNum) {
+                return;
+            }
+            if (executor == null) {
+                check(bindingPlan, endRows.pollFirst(), result);
+                return;
+            }
+            chunk.add(endRows.pollFirst());
+            if (chunk.size() >= PARALLEL_CONVERT_CHUNK_SIZE) {
+                submitChunk();
+            }
+        }
+
+        /**
+         * 全部行读取完成，按原始顺序合并并行检查的结果
+         *
+         * @return ExcelImportResult<T>
+         */
+        ExcelImportResult<T> finish() {
+            if (!chunk.isEmpty()) {
+                submitChunk();
+            }
+            for (CompletableFuture<ExcelImportResult<T>> future : futures) {
+                try {
+                    result.merge(future.join());
+                } catch (CompletionException e) {
+                    Throwable cause = e.getCause();
+                    throw cause instanceof RuntimeException ? (RuntimeException) cause : new ApiException("导入数据解析错误");
+                }
+            }
+            return result;
+        }
+
+        private void submitChunk() {
+            List<SourceRow> rows = chunk;
+            ExcelBindingPlan<T> plan = bindingPlan;
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                long convertStart = trace.time();
+                ExcelImportResult<T> chunkResult = new ExcelImportResult<>(maxErrors);
+                for (SourceRow row : rows) {
+                    check(plan, row, chunkResult);
+                }
+                trace.converted(convertStart);
+                return chunkResult;
+            }, executor));
+            chunk = new ArrayList<>(PARALLEL_CONVERT_CHUNK_SIZE);
+        }
+
+        /**
+         * 检查一行：先转换全部单元格，都成功时再做业务校验
+         *
+         * @param plan 字段绑定计划
+         * @param row 行数据
+         * @param target 检查结果
+         */
+        private void check(ExcelBindingPlan<T> plan, SourceRow row, ExcelImportResult<T> target) {
+            List<ExcelImportError> rowErrors = new ArrayList<>();
+            T dto = plan.bind(row.values, (columnIndex, columnName, value, message) ->
+                    rowErrors.add(new ExcelImportError(row.sheetName, row.rowNum, columnIndex, columnName, value, message)));
+            if (rowErrors.isEmpty() && validator != null) {
+                long validateStart = trace.time();
+                try {
+                    validator.validate(dto, (columnName, message) -> rowErrors.add(row.error(plan, columnName, message)));
+                } catch (RuntimeException e) {
+                    // 校验代码的任何异常都记为该行的错误，不中断导入
+                    String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+                    rowErrors.add(row.error(plan, null, message));
+                } finally {
+                    trace.validated(validateStart);
+                }
+            }
+            if (rowErrors.isEmpty()) {
+                target.addValid(dto);
+            } else {
+                target.addRejected(new ExcelImportResult.RejectedRow(row.sheetName, row.rowNum,
+                        ExcelCellReader.readStrings(row.values), rowErrors), rowErrors);
+            }
+        }
+    }
+
+    /**
+     * 全量解析时每行在excel中的行号(从1开始)，与解析结果按序号对应
+     */
+    private static final class RowNums implements IntConsumer {
+
+        private int[] values = new int[1024];
+        private int size;
+
+        @Override
+        public void accept(int rowNum) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = rowNum + 1;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+    }
+
+    /**
+     * 带位置的行数据
+     */
+    private static class SourceRow {
+
+        private final String sheetName;
+        private final int rowNum;
+        private final List<Object> values;
+
+        SourceRow(String sheetName, int rowNum, List<Object> values) {
+            this.sheetName = sheetName;
+            this.rowNum = rowNum;
+            this.values = values;
+        }
+
+        /**
+         * 业务校验的错误
+         *
+         * @param plan 字段绑定计划，用于按列名定位列
+         * @param columnName 列名，为null时为整行错误
+         * @param message 错误信息
+         * @return ExcelImportError
+         */
+        ExcelImportError error(ExcelBindingPlan<?> plan, String columnName, String message) {
+            int columnIndex = columnName == null ? -1 : plan.getColumnIndex(columnName);
+            Object value = columnIndex >= 0 && columnIndex < values.size() ? values.get(columnIndex) : null;
+            return new ExcelImportError(sheetName, rowNum, columnIndex, columnName == null ? "" : columnName, value, message);
+        }
+    }
+
+    /**
+     * 本地文件解析逻辑
+     */
+    @FunctionalInterface
+    private interface LocalFileTask {
+
+        /**
+         * 解析本地文件
+         *
+         * @param fileName 文件名（带后缀）
+         * @param file 本地文件
+         */
+        void read(String fileName, File file) throws IOException;
+    }
+
+    /**
+     * 按sheet独立解析时，在错误信息前加上sheet名称
+     */
+    private static class SheetScopedListener implements ExcelRowListener {
+
+        private final ExcelRowListener delegate;
+        private String sheetName;
+
+        SheetScopedListener(ExcelRowListener delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onSheetStart(int sheetIndex, String sheetName) {
+            this.sheetName = sheetName;
+            delegate.onSheetStart(sheetIndex, sheetName);
+        }
+
+        @Override
+        public void onRow(int sheetIndex, int rowNum, List<Object> row) {
+            try {
+                delegate.onRow(sheetIndex, rowNum, row);
+            } catch (ApiException e) {
+                throw new ApiException("sheet[" + sheetName + "]" + e.getMessage());
+            }
+        }
+
+        @Override
+        public boolean isColumnRequired(int columnIndex) {
+            return delegate.isColumnRequired(columnIndex);
+        }
+    }
+
+    /**
+     * 顺序解析多个sheet时每个sheet换用工厂创建的回调，与按sheet并行解析的回调一致
+     */
+    private static class PerSheetListener implements ExcelRowListener {
+
+        private final IntFunction<ExcelRowListener> listenerFactory;
+        private ExcelRowListener current;
+
+        PerSheetListener(IntFunction<ExcelRowListener> listenerFactory) {
+            this.listenerFactory = listenerFactory;
+        }
+
+        @Override
+        public void onSheetStart(int sheetIndex, String sheetName) {
+            current = listenerFactory.apply(sheetIndex);
+            current.onSheetStart(sheetIndex, sheetName);
+        }
+
+        @Override
+        public void onRow(int sheetIndex, int rowNum, List<Object> row) {
+            current.onRow(sheetIndex, rowNum, row);
+        }
+
+        @Override
+        public boolean isColumnRequired(int columnIndex) {
+            return current == null || current.isColumnRequired(columnIndex);
+        }
+    }
+
+    /**
+     * 按批次回调，攒够batchSize条回调一次，最后不足一批的调用flush回调
+     */
+    private static class BatchConsumer<T> implements Consumer<T> {
+
+        private final int batchSize;
+        private final Consumer<List<T>> batchConsumer;
+        private List<T> batch;
+
+        BatchConsumer(int batchSize, Consumer<List<T>> batchConsumer) {
+            if (batchSize <= 0) {
+                throw new ApiException("batchSize必须大于0");
+            }
+            this.batchSize = batchSize;
+            this.batchConsumer = batchConsumer;
+            this.batch = new ArrayList<>(batchSize);
+        }
+
+        @Override
+        public void accept(T t) {
+            batch.add(t);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<T> full = batch;
+            batch = new ArrayList<>(batchSize);
+            batchConsumer.accept(full);
+        }
+    }
 }
@@ -0,0 +1,38 @@
+package com.lvyou.micro.utils.excel;
+
+/**
+ * <p>
+ * 导入导出指标注册，全局生效
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-08
+ */
+public final class ExcelInstrumentation {
+
+    private static volatile ExcelMetrics metrics = ExcelMetrics.NOOP;
+
+    private ExcelInstrumentation() {
+        //do nothing
+    }
+
+    /**
+     * 注册指标实现，传null时恢复为不记录
+     *
+     * @param metrics 指标实现，如{@link MicrometerExcelMetrics}
+     */
+    public static void setMetrics(ExcelMetrics metrics) {
+        ExcelInstrumentation.metrics = metrics == null ? ExcelMetrics.NOOP : metrics;
+    }
+
+    public static ExcelMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 是否已注册指标实现，未注册时调用方跳过计时和计数
+     */
+    static boolean isEnabled() {
+        return metrics != ExcelMetrics.NOOP;
+    }
+}
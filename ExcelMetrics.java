@@ -0,0 +1,110 @@
+package com.lvyou.micro.utils.excel;
+
+/**
+ * <p>
+ * 导入导出指标SPI，默认{@link #NOOP}不记录；通过{@link ExcelInstrumentation#setMetrics(ExcelMetrics)}注册实现，
+ * 未注册时导入导出不计时、不计数
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-08
+ */
+public interface ExcelMetrics {
+
+    /**
+     * 不记录任何指标
+     */
+    ExcelMetrics NOOP = new ExcelMetrics() {
+    };
+
+    /**
+     * 导入阶段
+     */
+    enum ImportPhase {
+        /**
+         * 打开工作薄(读取文件结构、共享字符串、样式)
+         */
+        OPEN,
+        /**
+         * 逐行读取单元格
+         */
+        READ_ROWS,
+        /**
+         * 行数据转对象
+         */
+        CONVERT,
+        /**
+         * 数据校验
+         */
+        VALIDATE
+    }
+
+    /**
+     * 导入读取的文件字节数
+     *
+     * @param bytes 字节数
+     */
+    default void recordImportBytes(long bytes) {
+        //do nothing
+    }
+
+    /**
+     * 导入各阶段耗时
+     *
+     * @param phase 阶段
+     * @param nanos 耗时(纳秒)
+     */
+    default void recordImportPhase(ImportPhase phase, long nanos) {
+        //do nothing
+    }
+
+    /**
+     * 导入解析的sheet、行、单元格数量(不含每个sheet开头忽略的行和空行)
+     *
+     * @param sheets sheet数
+     * @param rows   行数
+     * @param cells  单元格数
+     */
+    default void recordImportParsed(long sheets, long rows, long cells) {
+        //do nothing
+    }
+
+    /**
+     * 一次导入完成
+     *
+     * @param objects 转换的对象数
+     * @param nanos   总耗时(纳秒)，objects / nanos 即每秒行数
+     */
+    default void recordImport(long objects, long nanos) {
+        //do nothing
+    }
+
+    /**
+     * 单元格转换失败
+     *
+     * @param columnName 列名
+     */
+    default void recordConversionFailure(String columnName) {
+        //do nothing
+    }
+
+    /**
+     * 导出写入工作薄
+     *
+     * @param rows  数据行数
+     * @param nanos 耗时(纳秒)
+     */
+    default void recordExportCreate(long rows, long nanos) {
+        //do nothing
+    }
+
+    /**
+     * 导出输出文件
+     *
+     * @param bytes 输出字节数
+     * @param nanos 耗时(纳秒)
+     */
+    default void recordExportWrite(long bytes, long nanos) {
+        //do nothing
+    }
+}
@@ -0,0 +1,137 @@
+package com.lvyou.micro.utils.excel;
+
+import com.lvyou.micro.exception.ApiException;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * 分页查询迭代器：取出一页开始写入时，在线程池中预取下一页，内存中最多同时保留两页数据；
+ * 页码从1开始，查询结果为空时结束(会多查询一次空页)。
+ * 导出失败或提前结束时须调用close取消未开始的预取，查询出错后不再预取
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-19
+ */
+final class ExcelPageIterator<T> implements Iterator<T>, AutoCloseable {
+
+    private static final int FIRST_PAGE_NO = 1;
+
+    private final Function<Integer, List<T>> pageQuery;
+    private final Executor executor;
+    private Iterator<T> current = Collections.emptyIterator();
+    private CompletableFuture<List<T>> nextPage;
+    private int pageNo = FIRST_PAGE_NO;
+    private boolean finished;
+
+    /**
+     * 使用默认线程池预取(每个导出同时最多一个预取任务)，线程池满时在调用线程中查询
+     *
+     * @param pageQuery 分页查询，参数为页码
+     */
+    ExcelPageIterator(Function<Integer, List<T>> pageQuery) {
+        this(pageQuery, DefaultExecutorHolder.EXECUTOR);
+    }
+
+    /**
+     * @param pageQuery 分页查询，参数为页码
+     * @param executor  预取下一页的线程池
+     */
+    ExcelPageIterator(Function<Integer, List<T>> pageQuery, Executor executor) {
+        this.pageQuery = pageQuery;
+        this.executor = executor;
+        this.nextPage = fetch(pageNo);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (finished) {
+                return false;
+            }
+            List<T> page;
+            try {
+                page = join(nextPage);
+            } catch (RuntimeException e) {
+                finished = true;
+                nextPage = null;
+                throw e;
+            }
+            if (page == null || page.isEmpty()) {
+                finished = true;
+                nextPage = null;
+                return false;
+            }
+            // 当前页写入期间预取下一页
+            nextPage = fetch(++pageNo);
+            current = page.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    /**
+     * 取消未完成的预取：尚未开始的查询不再执行，已开始的查询结果丢弃
+     */
+    @Override
+    public void close() {
+        finished = true;
+        current = Collections.emptyIterator();
+        if (nextPage != null) {
+            nextPage.cancel(false);
+            nextPage = null;
+        }
+    }
+
+    private CompletableFuture<List<T>> fetch(int pageNo) {
+        return CompletableFuture.supplyAsync(() -> pageQuery.apply(pageNo), executor);
+    }
+
+    private static <T> List<T> join(CompletableFuture<List<T>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new ApiException("导出数据查询失败");
+        }
+    }
+
+    /**
+     * 默认预取线程池：线程数、排队数有界，超出时由调用线程(写入线程)自己查询，不再预取
+     */
+    private static class DefaultExecutorHolder {
+
+        private static final int THREADS = 8;
+        private static final int QUEUE_CAPACITY = 16;
+        private static final AtomicInteger THREAD_NUM = new AtomicInteger();
+        private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(THREADS, THREADS, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+            Thread thread = new Thread(r, "excel-page-" + THREAD_NUM.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+        static {
+            EXECUTOR.allowCoreThreadTimeOut(true);
+        }
+    }
+}
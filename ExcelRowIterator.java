@@ -0,0 +1,171 @@
+package com.lvyou.micro.utils.excel;
+
+import com.lvyou.micro.exception.ApiException;
+
+import java.io.Closeable;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>
+ * 导入数据迭代器，后台线程边解析边转换，通过有界队列交给调用方逐条读取，整个sheet不会同时驻留内存。
+ * 须在try-with-resources中使用，使用完毕(或中途放弃)调用{@link #close()}停止后台线程、删除临时文件；
+ * 未关闭就丢弃的迭代器被回收后，后台线程在队列等待超时时发现并停止，不会一直阻塞
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-08-16
+ */
+public class ExcelRowIterator<T> implements Iterator<T>, Closeable {
+
+    private static final Object END = new Object();
+    private static final AtomicInteger THREAD_NUM = new AtomicInteger();
+    /**
+     * 队列满时后台线程每隔该时间检查一次迭代器是否已关闭或已被回收
+     */
+    private static final long OFFER_TIMEOUT_MILLIS = 1000;
+
+    private final Channel channel;
+    private final Thread producerThread;
+    private Object next;
+
+    ExcelRowIterator(int bufferSize, Producer<T> producer) {
+        // 后台线程只引用channel，不引用迭代器，调用方丢弃迭代器后可以被回收
+        Channel shared = new Channel(bufferSize, new WeakReference<>(this));
+        this.channel = shared;
+        this.producerThread = new Thread(() -> {
+            try {
+                producer.produce(shared::put);
+            } catch (Throwable e) {
+                shared.error = e;
+            } finally {
+                shared.putEnd();
+            }
+        }, "excel-import-" + THREAD_NUM.incrementAndGet());
+        this.producerThread.setDaemon(true);
+        this.producerThread.start();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = channel.queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new ApiException("导入数据读取中断");
+            }
+        }
+        if (next != END) {
+            return true;
+        }
+        Throwable e = channel.error;
+        if (e != null && !channel.closed) {
+            channel.error = null;
+            throw e instanceof RuntimeException ? (RuntimeException) e : new ApiException("解析的文件有误：" + e.getMessage());
+        }
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T t = (T) next;
+        next = null;
+        return t;
+    }
+
+    /**
+     * 转为Stream，关闭Stream时同时关闭迭代器
+     *
+     * @return Stream<T>
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    /**
+     * 停止后台解析并释放缓冲数据
+     */
+    @Override
+    public void close() {
+        if (channel.closed) {
+            return;
+        }
+        channel.closed = true;
+        producerThread.interrupt();
+        channel.queue.clear();
+        next = END;
+    }
+
+    /**
+     * 后台线程与迭代器共用的队列和状态
+     */
+    private static class Channel {
+
+        private final BlockingQueue<Object> queue;
+        private final Reference<?> owner;
+        private volatile boolean closed;
+        private volatile Throwable error;
+
+        Channel(int bufferSize, Reference<?> owner) {
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+            this.owner = owner;
+        }
+
+        /**
+         * 放入队列，队列满时等待；迭代器已关闭或已被回收时抛出CancellationException结束解析
+         */
+        void put(Object value) {
+            try {
+                while (!closed && owner.get() != null) {
+                    if (queue.offer(value, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new CancellationException();
+        }
+
+        void putEnd() {
+            try {
+                put(END);
+            } catch (CancellationException e) {
+                //迭代器已关闭或已被回收，没有读取方
+            }
+        }
+    }
+
+    /**
+     * 数据生产者，在后台线程中执行
+     */
+    @FunctionalInterface
+    interface Producer<T> {
+
+        /**
+         * 解析数据并逐条交给sink
+         *
+         * @param sink 数据接收者
+         */
+        void produce(Consumer<T> sink) throws Exception;
+    }
+}
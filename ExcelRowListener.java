@@ -0,0 +1,44 @@
+package com.lvyou.micro.utils.excel;
+
+import java.util.List;
+
+/**
+ * <p>
+ * excel行数据回调，解析器每读到一行有效数据回调一次
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-08-15
+ */
+@FunctionalInterface
+interface ExcelRowListener {
+
+    /**
+     * 开始解析sheet
+     *
+     * @param sheetIndex sheet序号(从0开始)
+     * @param sheetName  sheet名称
+     */
+    default void onSheetStart(int sheetIndex, String sheetName) {
+        //do nothing
+    }
+
+    /**
+     * 读到一行数据
+     *
+     * @param sheetIndex sheet序号(从0开始)
+     * @param rowNum     行号(从0开始)
+     * @param row        行数据, object表示列
+     */
+    void onRow(int sheetIndex, int rowNum, List<Object> row);
+
+    /**
+     * 是否需要该列的值，不需要的单元格在解析时跳过，行数据中对应位置为空字符串(或行数据在此之前结束)
+     *
+     * @param columnIndex 列序号(从0开始)
+     * @return 默认全部需要
+     */
+    default boolean isColumnRequired(int columnIndex) {
+        return true;
+    }
+}
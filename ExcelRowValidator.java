@@ -0,0 +1,24 @@
+package com.lvyou.micro.utils.excel;
+
+import java.util.function.BiConsumer;
+
+/**
+ * <p>
+ * 导入行的业务校验，在单元格转换全部成功后调用；校验不通过时通过reject记录错误，一行可记录多条。
+ * 校验中抛出的运行时异常按该行的整行错误记录，不中断导入
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-20
+ */
+@FunctionalInterface
+public interface ExcelRowValidator<T> {
+
+    /**
+     * 校验一行
+     *
+     * @param row    转换后的对象
+     * @param reject 记录错误(列名, 错误信息)，列名为null或不是表头中的列时按整行错误记录
+     */
+    void validate(T row, BiConsumer<String, String> reject);
+}
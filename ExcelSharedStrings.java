@@ -0,0 +1,335 @@
+package com.lvyou.micro.utils.excel;
+
+import com.lvyou.micro.exception.ApiException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * .xlsx共享字符串表：全部文本连续存放，按下标记录起止位置，不为每一项创建String；
+ * 文本不超过SPILL_THRESHOLD_CHARS个字符时放在一个String中，超过时写入临时文件(UTF-16)，堆中只保留int[]下标，
+ * 取值时按位置读取，共享字符串很多的文件堆内存不随表大小增长。
+ * 单元格取值时按需解码，解码结果放入每个sheet独立的缓存(按下标直接映射的数组，按字符数限制大小)，重复的值返回同一个String。
+ * 取代ReadOnlySharedStringsTable + XSSFSheetXMLHandler，后者把每一项都解析为String常驻内存，
+ * 且每个共享字符串单元格都要创建一次XSSFRichTextString。
+ * 使用完须close删除临时文件
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-28
+ */
+final class ExcelSharedStrings implements Closeable {
+
+    /**
+     * 文本超过该字符数时写入临时文件
+     */
+    static final int SPILL_THRESHOLD_CHARS = 1 << 22;
+    /**
+     * 每个sheet缓存的槽数，下标按低位映射到槽，同一槽后来的值替换先前的值
+     */
+    private static final int CACHE_SLOTS = 1 << 14;
+    /**
+     * 每个sheet缓存的解码结果最多字符数
+     */
+    private static final int MAX_CACHED_CHARS = 1 << 20;
+    /**
+     * 超过该长度的文本不缓存，避免少数长文本占满缓存
+     */
+    private static final int MAX_CACHED_LENGTH = 1 << 12;
+
+    private static final String ITEM_TAG = "si";
+    private static final String TEXT_TAG = "t";
+
+    /**
+     * 内存中的文本，写入临时文件时为null
+     */
+    private final String text;
+    private final File spillFile;
+    private final FileChannel spillChannel;
+    /**
+     * 第i项为文本中[offsets[i], offsets[i + 1])，单位为字符
+     */
+    private final int[] offsets;
+    private final int count;
+
+    private ExcelSharedStrings(String text, File spillFile, FileChannel spillChannel, int[] offsets, int count) {
+        this.text = text;
+        this.spillFile = spillFile;
+        this.spillChannel = spillChannel;
+        this.offsets = offsets;
+        this.count = count;
+    }
+
+    /**
+     * 读取共享字符串表，文件中没有共享字符串时为空表
+     *
+     * @param pkg       excel文件
+     * @param xmlReader xml解析器
+     * @return ExcelSharedStrings，只读，可在多个sheet的解析线程间共用
+     * @author kun.tan
+     * @date 10:20 2022-09-28
+     */
+    static ExcelSharedStrings read(OPCPackage pkg, XMLReader xmlReader) throws IOException, SAXException {
+        return read(pkg, xmlReader, SPILL_THRESHOLD_CHARS);
+    }
+
+    /**
+     * 读取共享字符串表
+     *
+     * @param pkg                 excel文件
+     * @param xmlReader           xml解析器
+     * @param spillThresholdChars 文本超过该字符数时写入临时文件
+     * @return ExcelSharedStrings
+     */
+    static ExcelSharedStrings read(OPCPackage pkg, XMLReader xmlReader, int spillThresholdChars) throws IOException, SAXException {
+        List<PackagePart> parts = pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+        TableHandler handler = new TableHandler(spillThresholdChars);
+        try {
+            if (!parts.isEmpty()) {
+                xmlReader.setContentHandler(handler);
+                try (InputStream in = parts.get(0).getInputStream()) {
+                    xmlReader.parse(new InputSource(in));
+                }
+            }
+            return handler.finish();
+        } catch (IOException | SAXException | RuntimeException e) {
+            handler.discard();
+            throw e;
+        }
+    }
+
+    /**
+     * 创建取值缓存，每个sheet一个，不能在线程间共用
+     *
+     * @return Lookup
+     */
+    Lookup newLookup() {
+        return new Lookup();
+    }
+
+    /**
+     * 关闭并删除临时文件
+     */
+    @Override
+    public void close() throws IOException {
+        if (spillChannel != null) {
+            try {
+                spillChannel.close();
+            } finally {
+                Files.deleteIfExists(spillFile.toPath());
+            }
+        }
+    }
+
+    /**
+     * 还原xml中转义的控制字符，如_x000D_，与XSSFRichTextString一致
+     */
+    private static String utfDecode(String value) {
+        int idx = value.indexOf("_x");
+        if (idx < 0) {
+            return value;
+        }
+        StringBuilder buf = new StringBuilder(value.length());
+        int from = 0;
+        for (; idx >= 0 && idx + 7 <= value.length(); idx = value.indexOf("_x", idx + 1)) {
+            if (value.charAt(idx + 6) != '_' || !isHex(value, idx + 2, idx + 6)) {
+                continue;
+            }
+            buf.append(value, from, idx).append((char) Integer.parseInt(value.substring(idx + 2, idx + 6), 16));
+            from = idx + 7;
+            idx = from - 1;
+        }
+        if (from == 0) {
+            return value;
+        }
+        return buf.append(value, from, value.length()).toString();
+    }
+
+    private static boolean isHex(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * sheet内的取值缓存：下标的低位决定槽位，未命中时解码并替换该槽，缓存的字符总数不超过MAX_CACHED_CHARS
+     */
+    final class Lookup {
+
+        private final int[] keys = new int[CACHE_SLOTS];
+        private final String[] values = new String[CACHE_SLOTS];
+        private int cachedChars;
+        private ByteBuffer buffer;
+
+        Lookup() {
+            Arrays.fill(keys, -1);
+        }
+
+        /**
+         * 取共享字符串
+         *
+         * @param index 下标
+         * @return 文本，下标不存在时为null
+         */
+        String get(int index) {
+            if (index < 0 || index >= count) {
+                return null;
+            }
+            int slot = index & (CACHE_SLOTS - 1);
+            if (keys[slot] == index) {
+                return values[slot];
+            }
+            String value = utfDecode(text == null ? readSpilled(offsets[index], offsets[index + 1]) : text.substring(offsets[index],
+                    offsets[index + 1]));
+            if (value.length() <= MAX_CACHED_LENGTH) {
+                String replaced = values[slot];
+                int chars = cachedChars + value.length() - (replaced == null ? 0 : replaced.length());
+                if (chars <= MAX_CACHED_CHARS) {
+                    keys[slot] = index;
+                    values[slot] = value;
+                    cachedChars = chars;
+                }
+            }
+            return value;
+        }
+
+        /**
+         * 按位置从临时文件读取[from, to)的字符，FileChannel按位置读取可以在多个sheet的解析线程间并发
+         */
+        private String readSpilled(int from, int to) {
+            int length = (to - from) * 2;
+            if (buffer == null || buffer.capacity() < length) {
+                buffer = ByteBuffer.allocate(Math.max(length, 1024));
+            }
+            buffer.clear().limit(length);
+            long position = from * 2L;
+            try {
+                while (buffer.hasRemaining()) {
+                    if (spillChannel.read(buffer, position + buffer.position()) < 0) {
+                        throw new EOFException();
+                    }
+                }
+            } catch (IOException e) {
+                throw new ApiException("解析的文件有误");
+            }
+            buffer.flip();
+            return buffer.asCharBuffer().toString();
+        }
+    }
+
+    /**
+     * 解析sst：每个si中全部t元素(含富文本的各段、注音)的文本拼接为一项，与ReadOnlySharedStringsTable一致；
+     * 文本超过阈值后每读完一项写入临时文件
+     */
+    private static class TableHandler extends DefaultHandler {
+
+        private final int spillThresholdChars;
+        private final StringBuilder text = new StringBuilder();
+        private int[] offsets = new int[1024];
+        private int count;
+        private boolean textOpen;
+        private File spillFile;
+        private Writer spillWriter;
+        private long spilledChars;
+
+        TableHandler(int spillThresholdChars) {
+            this.spillThresholdChars = spillThresholdChars;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            if (TEXT_TAG.equals(localName)) {
+                textOpen = true;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if (TEXT_TAG.equals(localName)) {
+                textOpen = false;
+            } else if (ITEM_TAG.equals(localName)) {
+                long end = spilledChars + text.length();
+                if (end > Integer.MAX_VALUE) {
+                    throw new ApiException("共享字符串过多");
+                }
+                if (count + 2 > offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                }
+                offsets[++count] = (int) end;
+                if (spillWriter != null || text.length() > spillThresholdChars) {
+                    spill();
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (textOpen) {
+                text.append(ch, start, length);
+            }
+        }
+
+        private void spill() throws SAXException {
+            try {
+                if (spillWriter == null) {
+                    spillFile = File.createTempFile("excel-sst", ".tmp");
+                    spillWriter = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(spillFile.toPath()),
+                            StandardCharsets.UTF_16BE), 1 << 16);
+                }
+                spillWriter.append(text);
+            } catch (IOException e) {
+                throw new SAXException(e);
+            }
+            spilledChars += text.length();
+            text.setLength(0);
+        }
+
+        ExcelSharedStrings finish() throws IOException {
+            if (spillWriter == null) {
+                return new ExcelSharedStrings(text.toString(), null, null, offsets, count);
+            }
+            spillWriter.close();
+            spillWriter = null;
+            FileChannel channel = FileChannel.open(spillFile.toPath(), StandardOpenOption.READ);
+            return new ExcelSharedStrings(null, spillFile, channel, offsets, count);
+        }
+
+        void discard() {
+            try {
+                if (spillWriter != null) {
+                    spillWriter.close();
+                }
+                if (spillFile != null) {
+                    Files.deleteIfExists(spillFile.toPath());
+                }
+            } catch (IOException e) {
+                spillFile.deleteOnExit();
+            }
+        }
+    }
+}
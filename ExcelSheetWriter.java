@@ -0,0 +1,217 @@
+package com.lvyou.micro.utils.excel;
+
+import com.lvyou.micro.exception.ApiException;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * <p>
+ * 一个数据集写入工作薄：每个sheet第一行为表头，数据行数达到上限时新建sheet继续写入，列宽按sheet分别计算。
+ * 列格式、表头样式在创建时确定，不同数据集的写入器可在不同线程中同时写入各自的sheet(仅限SXSSF且不使用共享字符串表)
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-20
+ */
+final class ExcelSheetWriter<T> {
+
+    private static final int MAX_COLUMN_WIDTH = 30000;
+
+    /**
+     * 一个半角字符的列宽(1/256字符宽度为单位，含边距)
+     */
+    private static final int CHAR_WIDTH_UNIT = 260;
+
+    private static final int TEXT_COLUMN = 0;
+    private static final int NUMBER_COLUMN = 1;
+    private static final int DATE_COLUMN = 2;
+
+    private final Workbook workbook;
+    private final Iterator<T> data;
+    private final IntFunction<String> sheetNames;
+    private final int sheetRowLimit;
+    private final ExcelColumnWidthStrategy widthStrategy;
+    private final List<Field> fieldList;
+    private final CellStyle headerStyle;
+    private final CellStyle[] columnStyleArray;
+    private final int[] columnTypeArray;
+    private final Function<Object, String>[] formatterArray;
+    private final int[] dateWidthArray;
+    private final List<String> createdSheetNames = new ArrayList<>();
+    private Sheet sheet;
+    private int[] columnWidthArray;
+
+    /**
+     * 创建写入器及第一个sheet(数据为空时也输出表头)，须在写入线程之外按顺序创建
+     *
+     * @param workbook      工作薄
+     * @param styleRegistry 工作薄的样式缓存
+     * @param clazz         对象类型
+     * @param data          数据
+     * @param sheetNames    第n个sheet(从1开始)的名称
+     * @param sheetRowLimit 每个sheet的数据行数上限(不含表头)，小于等于0或超过工作薄上限时按工作薄上限
+     * @param widthStrategy 列宽计算策略
+     */
+    ExcelSheetWriter(Workbook workbook, ExcelStyleRegistry styleRegistry, Class<T> clazz, Iterator<T> data,
+                     IntFunction<String> sheetNames, int sheetRowLimit, ExcelColumnWidthStrategy widthStrategy) {
+        this.workbook = workbook;
+        this.data = data;
+        this.sheetNames = sheetNames;
+        // 工作薄行数上限包含表头
+        int maxDataRows = workbook.getSpreadsheetVersion().getMaxRows() - 1;
+        this.sheetRowLimit = sheetRowLimit <= 0 ? maxDataRows : Math.min(sheetRowLimit, maxDataRows);
+        this.widthStrategy = widthStrategy;
+        this.fieldList = ExcelExportUtil.getExportFields(clazz);
+        this.headerStyle = styleRegistry.getHeaderStyle();
+
+        // 设置列格式(流式写出时已写出的行无法再访问, 列格式须在写数据前确定)
+        this.columnStyleArray = new CellStyle[fieldList.size()];
+        this.columnTypeArray = new int[fieldList.size()];
+        this.dateWidthArray = new int[fieldList.size()];
+        this.formatterArray = ExcelFormatterCache.getFormatters(fieldList);
+        for (int colIndex = 0; colIndex < fieldList.size(); colIndex++) {
+            Field field = fieldList.get(colIndex);
+            Class<?> type = field.getType();
+            field.setAccessible(Boolean.TRUE);
+            ExcelExportField annotation = field.getAnnotation(ExcelExportField.class);
+            if (ExcelExportUtil.isNumber(type)) {
+                String fmt = ExcelExportUtil.getNumberFormat(type, annotation.dataPattern());
+                columnStyleArray[colIndex] = styleRegistry.getDataFormatStyle(fmt);
+                columnTypeArray[colIndex] = NUMBER_COLUMN;
+            } else if (type == Date.class || type == LocalDate.class || type == LocalDateTime.class) {
+                // 日期写为excel日期单元格, 格式无法转换时仍写文本
+                String fmt = ExcelFormatterCache.getExcelDateFormat(annotation.dataPattern());
+                if (fmt != null) {
+                    columnStyleArray[colIndex] = styleRegistry.getDataFormatStyle(fmt);
+                    columnTypeArray[colIndex] = DATE_COLUMN;
+                    // 按格式长度估算列宽, 不需要逐个格式化
+                    dateWidthArray[colIndex] = widthStrategy.measure(annotation.dataPattern().replace("'", "")) * CHAR_WIDTH_UNIT;
+                }
+            }
+        }
+        newSheet();
+    }
+
+    /**
+     * 写入全部数据
+     *
+     * @param progress 每写入一行回调已写入的总行数
+     * @return 写入的行数
+     */
+    int write(IntConsumer progress) throws IllegalAccessException {
+        int count = 0;
+        int rowNum = 0;
+        while (data.hasNext()) {
+            if (rowNum == sheetRowLimit) {
+                finishSheet();
+                newSheet();
+                rowNum = 0;
+            }
+            //创建工作表的行(表头占用1行, 这里从第二行开始)
+            Row row = sheet.createRow(++rowNum);
+            writeRow(row, data.next(), widthStrategy.isMeasured(rowNum));
+            progress.accept(++count);
+        }
+        finishSheet();
+        return count;
+    }
+
+    /**
+     * 已创建的sheet名称，按创建顺序
+     */
+    List<String> getSheetNames() {
+        return createdSheetNames;
+    }
+
+    private void writeRow(Row row, T t, boolean measured) throws IllegalAccessException {
+        // 填充列数据
+        for (int j = 0; j < fieldList.size(); j++) {
+            Object value = fieldList.get(j).get(t);
+            if (value == null) {
+                continue;
+            }
+            if (columnTypeArray[j] == NUMBER_COLUMN) {
+                // 设置为数值类型
+                Cell cell = row.createCell(j);
+                cell.setCellValue(((Number) value).doubleValue());
+                cell.setCellStyle(columnStyleArray[j]);
+                continue;
+            }
+            if (columnTypeArray[j] == DATE_COLUMN) {
+                double excelDate = toExcelDate(value);
+                // 1900年之前excel不能表示为日期
+                if (excelDate >= 0) {
+                    Cell cell = row.createCell(j);
+                    cell.setCellValue(excelDate);
+                    cell.setCellStyle(columnStyleArray[j]);
+                    if (measured && columnWidthArray[j] < dateWidthArray[j]) {
+                        columnWidthArray[j] = dateWidthArray[j];
+                    }
+                    continue;
+                }
+            }
+            String dataValue = formatterArray[j].apply(value);
+            row.createCell(j).setCellValue(dataValue);
+            if (measured) {
+                int tempWidth = widthStrategy.measure(dataValue) * CHAR_WIDTH_UNIT;
+                if (columnWidthArray[j] < tempWidth) {
+                    columnWidthArray[j] = tempWidth;
+                }
+            }
+        }
+    }
+
+    private static double toExcelDate(Object value) {
+        if (value instanceof LocalDateTime) {
+            return DateUtil.getExcelDate((LocalDateTime) value);
+        } else if (value instanceof LocalDate) {
+            return DateUtil.getExcelDate((LocalDate) value);
+        }
+        return DateUtil.getExcelDate((Date) value);
+    }
+
+    private void newSheet() {
+        String sheetName = sheetNames.apply(createdSheetNames.size() + 1);
+        // 并行写入时其他数据集也可能在新建sheet
+        synchronized (workbook) {
+            if (workbook.getSheet(sheetName) != null) {
+                throw new ApiException("sheet名称重复: " + sheetName);
+            }
+            sheet = workbook.createSheet(sheetName);
+        }
+        createdSheetNames.add(sheetName);
+        columnWidthArray = new int[fieldList.size()];
+
+        // 表头处理(表头行最先写出, 须在数据之前创建)
+        Row rowHeader = sheet.createRow(0);
+        for (int i = 0; i < fieldList.size(); i++) {
+            ExcelExportField annotation = fieldList.get(i).getAnnotation(ExcelExportField.class);
+            Cell cell = rowHeader.createCell(i);
+            cell.setCellValue(annotation.value());
+            cell.setCellStyle(headerStyle);
+        }
+    }
+
+    private void finishSheet() {
+        // 列宽处理(列宽属于sheet定义, 流式写出时也可在数据之后设置)
+        for (int j = 0; j < fieldList.size(); j++) {
+            ExcelExportField annotation = fieldList.get(j).getAnnotation(ExcelExportField.class);
+            sheet.setColumnWidth(j, Math.min(Math.max(annotation.width(), columnWidthArray[j]), MAX_COLUMN_WIDTH));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.lvyou.micro.utils.excel;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>
+ * 工作薄级别的单元格样式缓存，按(数据格式, 边框, 填充色)复用CellStyle，避免每列/每个单元格都创建样式
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-08-22
+ */
+final class ExcelStyleRegistry {
+
+    /**
+     * 不填充
+     */
+    static final short NO_FILL = -1;
+
+    private final Workbook workbook;
+    private final Map<StyleKey, CellStyle> styles = new HashMap<>();
+    private DataFormat dataFormat;
+
+    ExcelStyleRegistry(Workbook workbook) {
+        this.workbook = workbook;
+    }
+
+    /**
+     * 表头样式：细边框、浅青色填充
+     *
+     * @return CellStyle
+     */
+    CellStyle getHeaderStyle() {
+        return getStyle(null, true, IndexedColors.LIGHT_TURQUOISE.index);
+    }
+
+    /**
+     * 数据格式样式
+     *
+     * @param format 数据格式，如0.00
+     * @return CellStyle
+     */
+    CellStyle getDataFormatStyle(String format) {
+        return getStyle(format, false, NO_FILL);
+    }
+
+    /**
+     * 获取样式，相同(数据格式, 边框, 填充色)只创建一次
+     *
+     * @param format    数据格式，null表示常规
+     * @param border    是否细边框
+     * @param fillColor 填充色，{@link #NO_FILL}表示不填充
+     * @return CellStyle
+     */
+    CellStyle getStyle(String format, boolean border, short fillColor) {
+        return styles.computeIfAbsent(new StyleKey(format, border, fillColor), this::createStyle);
+    }
+
+    private CellStyle createStyle(StyleKey key) {
+        CellStyle cellStyle = workbook.createCellStyle();
+        if (key.format != null) {
+            if (dataFormat == null) {
+                dataFormat = workbook.createDataFormat();
+            }
+            cellStyle.setDataFormat(dataFormat.getFormat(key.format));
+        }
+        if (key.border) {
+            cellStyle.setBorderBottom(BorderStyle.THIN);
+            cellStyle.setBorderTop(BorderStyle.THIN);
+            cellStyle.setBorderLeft(BorderStyle.THIN);
+            cellStyle.setBorderRight(BorderStyle.THIN);
+        }
+        if (key.fillColor != NO_FILL) {
+            cellStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            cellStyle.setFillForegroundColor(key.fillColor);
+        }
+        return cellStyle;
+    }
+
+    private static final class StyleKey {
+
+        private final String format;
+        private final boolean border;
+        private final short fillColor;
+
+        StyleKey(String format, boolean border, short fillColor) {
+            this.format = format;
+            this.border = border;
+            this.fillColor = fillColor;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof StyleKey)) {
+                return false;
+            }
+            StyleKey other = (StyleKey) o;
+            return border == other.border && fillColor == other.fillColor && Objects.equals(format, other.format);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(format, border, fillColor);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.lvyou.micro.utils.excel;
+
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.DateWindow1904Record;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RowRecord;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * .xls流式解析器，基于POI事件模型(HSSFEventFactory)按记录顺序逐行读取，不创建HSSFWorkbook，内存中只保留共享字符串表和当前行。
+ * 输出与{@link ExcelXlsxStreamReader}一致：数值单元格为{@link ExcelCellReader.NumericValue}，其他单元格为文本，
+ * 缺失的单元格补空字符串，公式取缓存的计算结果；跳过sheet开头的行以及空行
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-23
+ */
+final class ExcelXlsStreamReader implements HSSFListener {
+
+    /**
+     * FormulaRecord.getCachedResultType()的取值(与CellType编码一致，CellType.forInt在4.x已废弃)
+     */
+    private static final int CACHED_NUMERIC = 0;
+    private static final int CACHED_BOOLEAN = 4;
+
+    private final ExcelImportOptions options;
+    private final ExcelRowListener listener;
+    private final FormatTrackingHSSFListener formatListener;
+    private final List<BoundSheetRecord> boundSheets = new ArrayList<>();
+    private BoundSheetRecord[] orderedSheets;
+    private SSTRecord sst;
+    private boolean use1904Windowing;
+    /**
+     * BOF/EOF嵌套层级，工作表中的图表也有自己的BOF/EOF
+     */
+    private int depth;
+    private int sheetStreamIndex = -1;
+    private int sheetIndex = -1;
+    private boolean inWorksheet;
+    private int firstRowNum;
+    private int currentRowNum;
+    private boolean rowEmpty;
+    private List<Object> row;
+    /**
+     * 结果为文本的公式，值在随后的StringRecord中
+     */
+    private int formulaRowNum = -1;
+    private int formulaCol;
+
+    private ExcelXlsStreamReader(ExcelImportOptions options, ExcelRowListener listener) {
+        this.options = options;
+        this.listener = listener;
+        this.formatListener = new FormatTrackingHSSFListener(this);
+    }
+
+    /**
+     * 逐行解析.xls文件
+     *
+     * @param file     excel文件
+     * @param options  sheet、行范围选择
+     * @param listener 行回调
+     * @author kun.tan
+     * @date 10:40 2022-09-23
+     */
+    static void read(File file, ExcelImportOptions options, ExcelRowListener listener) throws IOException {
+        try (POIFSFileSystem fileSystem = new POIFSFileSystem(file, true)) {
+            ExcelXlsStreamReader reader = new ExcelXlsStreamReader(options, listener);
+            HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(reader.formatListener);
+            new HSSFEventFactory().processWorkbookEvents(request, fileSystem);
+        }
+    }
+
+    @Override
+    public void processRecord(Record record) {
+        switch (record.getSid()) {
+            case BOFRecord.sid:
+                startStream((BOFRecord) record);
+                break;
+            case EOFRecord.sid:
+                if (--depth == 0 && inWorksheet) {
+                    endRow();
+                    inWorksheet = false;
+                }
+                break;
+            case BoundSheetRecord.sid:
+                boundSheets.add((BoundSheetRecord) record);
+                break;
+            case SSTRecord.sid:
+                sst = (SSTRecord) record;
+                break;
+            case DateWindow1904Record.sid:
+                use1904Windowing = ((DateWindow1904Record) record).getWindowing() == 1;
+                break;
+            case RowRecord.sid:
+                int rowNumber = ((RowRecord) record).getRowNumber();
+                if (inWorksheet && (firstRowNum < 0 || rowNumber < firstRowNum)) {
+                    firstRowNum = rowNumber;
+                }
+                break;
+            case LabelSSTRecord.sid:
+                LabelSSTRecord labelSst = (LabelSSTRecord) record;
+                if (isRequired(labelSst.getRow(), labelSst.getColumn())) {
+                    cell(labelSst.getColumn(), sst.getString(labelSst.getSSTIndex()).getString());
+                }
+                break;
+            case LabelRecord.sid:
+                LabelRecord label = (LabelRecord) record;
+                if (isRequired(label.getRow(), label.getColumn())) {
+                    cell(label.getColumn(), label.getValue());
+                }
+                break;
+            case NumberRecord.sid:
+                NumberRecord number = (NumberRecord) record;
+                if (isRequired(number.getRow(), number.getColumn())) {
+                    cell(number.getColumn(), ExcelCellReader.numericValue(number.getValue(),
+                            formatListener.getFormatIndex(number), formatListener.getFormatString(number), use1904Windowing));
+                }
+                break;
+            case FormulaRecord.sid:
+                FormulaRecord formula = (FormulaRecord) record;
+                if (isRequired(formula.getRow(), formula.getColumn())) {
+                    formula(formula);
+                }
+                break;
+            case StringRecord.sid:
+                if (formulaRowNum >= 0) {
+                    if (formulaRowNum == currentRowNum && row != null) {
+                        cell(formulaCol, ((StringRecord) record).getString());
+                    }
+                    formulaRowNum = -1;
+                }
+                break;
+            case BoolErrRecord.sid:
+                BoolErrRecord boolErr = (BoolErrRecord) record;
+                if (isRequired(boolErr.getRow(), boolErr.getColumn())) {
+                    cell(boolErr.getColumn(), boolErr.isBoolean() ? ExcelCellReader.booleanToText(boolErr.getBooleanValue()) : "");
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void startStream(BOFRecord bof) {
+        // 全局工作薄流之后，第一层的BOF为各sheet的开始
+        if (depth++ != 0 || bof.getType() == BOFRecord.TYPE_WORKBOOK) {
+            return;
+        }
+        sheetStreamIndex++;
+        if (bof.getType() != BOFRecord.TYPE_WORKSHEET) {
+            return;
+        }
+        if (orderedSheets == null) {
+            orderedSheets = BoundSheetRecord.orderByBofPosition(boundSheets);
+        }
+        String sheetName = sheetStreamIndex < orderedSheets.length ? orderedSheets[sheetStreamIndex].getSheetname() : null;
+        if (!options.isSheetSelected(++sheetIndex, sheetName)) {
+            return;
+        }
+        inWorksheet = true;
+        firstRowNum = -1;
+        row = null;
+        formulaRowNum = -1;
+        listener.onSheetStart(sheetIndex, sheetName);
+    }
+
+    private void formula(FormulaRecord formula) {
+        if (formula.hasCachedResultString()) {
+            formulaRowNum = formula.getRow();
+            formulaCol = formula.getColumn();
+            return;
+        }
+        int type = formula.getCachedResultType();
+        Object value;
+        if (type == CACHED_NUMERIC) {
+            value = ExcelCellReader.numericValue(formula.getValue(), formatListener.getFormatIndex(formula),
+                    formatListener.getFormatString(formula), use1904Windowing);
+        } else if (type == CACHED_BOOLEAN) {
+            value = ExcelCellReader.booleanToText(formula.getCachedBooleanValue());
+        } else {
+            value = "";
+        }
+        cell(formula.getColumn(), value);
+    }
+
+    /**
+     * 单元格是否需要读取值，需要时再生成值(查共享字符串、格式化数值)；
+     * 行范围内不需要的列不生成值，但仍算作非空行，保证空行判断与读取全部列时一致
+     *
+     * @param rowNum 行号
+     * @param col    列序号
+     * @return boolean
+     */
+    private boolean isRequired(int rowNum, int col) {
+        if (!inWorksheet) {
+            return false;
+        }
+        startRow(rowNum);
+        if (!options.isInRowRange(rowNum)) {
+            return false;
+        }
+        if (listener.isColumnRequired(col)) {
+            return true;
+        }
+        rowEmpty = false;
+        return false;
+    }
+
+    private void startRow(int rowNum) {
+        if (row != null && rowNum != currentRowNum) {
+            endRow();
+        }
+        if (row == null) {
+            if (firstRowNum < 0) {
+                firstRowNum = rowNum;
+            }
+            row = new ArrayList<>();
+            currentRowNum = rowNum;
+            rowEmpty = true;
+        }
+    }
+
+    private void cell(int col, Object value) {
+        // 缺失的单元格补空字符串，保证列序号与表头对齐
+        for (int i = row.size(); i < col; i++) {
+            row.add("");
+        }
+        if (col < row.size()) {
+            row.set(col, value);
+        } else {
+            row.add(value);
+        }
+        if (!"".equals(value)) {
+            rowEmpty = false;
+        }
+    }
+
+    private void endRow() {
+        if (row == null) {
+            return;
+        }
+        if (options.isRowSelected(currentRowNum, firstRowNum) && !rowEmpty) {
+            listener.onRow(sheetIndex, currentRowNum, row);
+        }
+        row = null;
+    }
+}
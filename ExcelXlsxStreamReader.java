@@ -0,0 +1,449 @@
+package com.lvyou.micro.utils.excel;
+
+import com.lvyou.micro.exception.ApiException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
+
+/**
+ * <p>
+ * .xlsx流式解析器，基于POI事件模型(SAX)逐行读取，不创建XSSFWorkbook，内存占用与行数无关；
+ * 数值单元格为{@link ExcelCellReader.NumericValue}，其他单元格为文本
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-08-15
+ */
+final class ExcelXlsxStreamReader {
+
+    private static final String ROW_TAG = "row";
+    private static final String CELL_TAG = "c";
+    private static final String VALUE_TAG = "v";
+    private static final String INLINE_STRING_TAG = "is";
+    private static final String REFERENCE_ATTRIBUTE = "r";
+    private static final String TYPE_ATTRIBUTE = "t";
+    private static final String STYLE_ATTRIBUTE = "s";
+    private static final String SHARED_STRING_TYPE = "s";
+    private static final String NUMBER_TYPE = "n";
+
+    private ExcelXlsxStreamReader() {
+        //do nothing
+    }
+
+    /**
+     * 逐行解析.xlsx文件
+     *
+     * @param file     excel文件
+     * @param options  sheet、行范围选择
+     * @param listener 行回调
+     * @author kun.tan
+     * @date 10:12 2022-08-15
+     */
+    static void read(File file, ExcelImportOptions options, ExcelRowListener listener) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ);
+             ExcelSharedStrings strings = ExcelSharedStrings.read(pkg, newXmlReader())) {
+            XSSFReader reader = new XSSFReader(pkg);
+            StylesTable styles = reader.getStylesTable();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            int sheetIndex = 0;
+            while (sheets.hasNext()) {
+                try (InputStream sheetStream = sheets.next()) {
+                    if (options.isSheetSelected(sheetIndex, sheets.getSheetName())) {
+                        listener.onSheetStart(sheetIndex, sheets.getSheetName());
+                        readSheet(styles, strings, sheetStream, sheetIndex, options, listener);
+                    }
+                }
+                sheetIndex++;
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new ApiException("解析的文件有误");
+        }
+    }
+
+    /**
+     * 并行解析各sheet，每个sheet使用独立的行回调，全部sheet解析完成后返回
+     *
+     * @param file            excel文件
+     * @param options         sheet、行范围选择
+     * @param executor        解析sheet的线程池
+     * @param listenerFactory 按sheet序号创建行回调(在调用线程中按sheet顺序调用)
+     * @author kun.tan
+     * @date 16:05 2022-08-24
+     */
+    static void readParallel(File file, ExcelImportOptions options, Executor executor, IntFunction<ExcelRowListener> listenerFactory)
+            throws IOException {
+        // 共享字符串和样式只读，可以在多个sheet之间共用；全部sheet解析完成后再关闭
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ);
+             ExcelSharedStrings strings = ExcelSharedStrings.read(pkg, newXmlReader())) {
+            XSSFReader reader = new XSSFReader(pkg);
+            StylesTable styles = reader.getStylesTable();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            int sheetIndex = 0;
+            while (sheets.hasNext()) {
+                sheets.next().close();
+                PackagePart sheetPart = sheets.getSheetPart();
+                String sheetName = sheets.getSheetName();
+                int index = sheetIndex++;
+                if (!options.isSheetSelected(index, sheetName)) {
+                    continue;
+                }
+                ExcelRowListener listener = listenerFactory.apply(index);
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try (InputStream sheetStream = sheetPart.getInputStream()) {
+                        listener.onSheetStart(index, sheetName);
+                        readSheet(styles, strings, sheetStream, index, options, listener);
+                    } catch (IOException | SAXException | ParserConfigurationException e) {
+                        throw new ApiException("解析的文件有误");
+                    }
+                }, executor));
+            }
+            ExcelImportUtil.joinAll(futures);
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new ApiException("解析的文件有误");
+        }
+    }
+
+    private static void readSheet(StylesTable styles, ExcelSharedStrings strings, InputStream sheetStream, int sheetIndex,
+                                  ExcelImportOptions options, ExcelRowListener listener) throws IOException, SAXException, ParserConfigurationException {
+        XMLReader xmlReader = newXmlReader();
+        SheetHandler sheetHandler = new SheetHandler(sheetIndex, options, listener);
+        // 共享字符串、数值单元格由CellFilter直接取值，XSSFSheetXMLHandler不会用到共享字符串表
+        xmlReader.setContentHandler(new CellFilter(new XSSFSheetXMLHandler(styles, null, null, sheetHandler,
+                new RawValueFormatter(), false), sheetHandler, styles, strings.newLookup(), options, listener));
+        try {
+            xmlReader.parse(new InputSource(sheetStream));
+        } catch (StopSheetException e) {
+            //超出行范围，sheet其余内容不再读取
+        }
+    }
+
+    /**
+     * 单元格引用(如AB12)中的列序号
+     *
+     * @param cellReference 单元格引用
+     * @return 列序号(从0开始)
+     */
+    private static int columnIndex(String cellReference) {
+        int col = 0;
+        for (int i = 0; i < cellReference.length(); i++) {
+            char c = cellReference.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            col = col * 26 + (c - 'A' + 1);
+        }
+        return col - 1;
+    }
+
+    private static XMLReader newXmlReader() throws ParserConfigurationException, SAXException {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        return factory.newSAXParser().getXMLReader();
+    }
+
+    /**
+     * 单个sheet的行收集器，与{@link ExcelImportUtil}保持一致：跳过sheet开头的行以及空行
+     */
+    private static class SheetHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final int sheetIndex;
+        private final ExcelImportOptions options;
+        private final ExcelRowListener listener;
+        private int firstRowNum = -1;
+        private int currentCol;
+        private int cellCol;
+        private boolean rowEmpty;
+        private List<Object> row;
+
+        SheetHandler(int sheetIndex, ExcelImportOptions options, ExcelRowListener listener) {
+            this.sheetIndex = sheetIndex;
+            this.options = options;
+            this.listener = listener;
+        }
+
+        /**
+         * 跳过的列有值，该行不是空行
+         */
+        void skippedValue() {
+            rowEmpty = false;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            if (firstRowNum < 0) {
+                firstRowNum = rowNum;
+            }
+            row = new ArrayList<>();
+            currentCol = -1;
+            rowEmpty = true;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (!options.isRowSelected(rowNum, firstRowNum) || rowEmpty) {
+                return;
+            }
+            listener.onRow(sheetIndex, rowNum, row);
+        }
+
+        /**
+         * 单元格开始，列序号由CellFilter确定，单元格引用省略或前面有跳过的单元格时也与表头对齐
+         *
+         * @param col 列序号(从0开始)
+         */
+        void startCell(int col) {
+            cellCol = col;
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            value(formattedValue);
+        }
+
+        /**
+         * 单元格取值
+         *
+         * @param value 文本或NumericValue，null按空字符串
+         */
+        void value(Object value) {
+            int col = cellCol;
+            // 缺失的单元格补空字符串，保证列序号与表头对齐
+            for (int i = currentCol + 1; i < col; i++) {
+                row.add("");
+            }
+            row.add(value == null ? "" : value);
+            currentCol = col;
+            if (value != null && !"".equals(value)) {
+                rowEmpty = false;
+            }
+        }
+    }
+
+    /**
+     * 在XSSFSheetXMLHandler之前过滤单元格：行范围外的行、不需要的列，整个c元素(含值)不交给XSSFSheetXMLHandler，
+     * 不查共享字符串、不格式化数值；行号超出行范围时结束该sheet的解析。
+     * 共享字符串、数值(含公式结果)单元格也不交给XSSFSheetXMLHandler，共享字符串直接按下标从缓存取值，
+     * 数值保留原值，不格式化为文本
+     */
+    private static class CellFilter extends DefaultHandler {
+
+        private final ContentHandler delegate;
+        private final SheetHandler sheetHandler;
+        private final StylesTable styles;
+        private final ExcelSharedStrings.Lookup strings;
+        private final ExcelImportOptions options;
+        private final ExcelRowListener listener;
+        private final StringBuilder cellValue = new StringBuilder();
+        /**
+         * 样式(s属性)是否为日期格式
+         */
+        private final Map<String, Boolean> dateStyles = new HashMap<>();
+        private boolean rowInRange = true;
+        /**
+         * 跳过的c元素内的嵌套层级，0表示未跳过
+         */
+        private int skipDepth;
+        /**
+         * 当前行上一个单元格的列序号，包括被跳过的单元格
+         */
+        private int lastCol;
+        /**
+         * 是否在由CellFilter取值的单元格中
+         */
+        private boolean valueCell;
+        private boolean valueCellShared;
+        private String valueCellStyle;
+        private boolean valueOpen;
+
+        CellFilter(ContentHandler delegate, SheetHandler sheetHandler, StylesTable styles, ExcelSharedStrings.Lookup strings,
+                   ExcelImportOptions options, ExcelRowListener listener) {
+            this.delegate = delegate;
+            this.sheetHandler = sheetHandler;
+            this.styles = styles;
+            this.strings = strings;
+            this.options = options;
+            this.listener = listener;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            if (skipDepth > 0) {
+                skipDepth++;
+                if (rowInRange && (VALUE_TAG.equals(localName) || INLINE_STRING_TAG.equals(localName))) {
+                    sheetHandler.skippedValue();
+                }
+                return;
+            }
+            if (valueCell) {
+                if (VALUE_TAG.equals(localName)) {
+                    valueOpen = true;
+                    cellValue.setLength(0);
+                }
+                return;
+            }
+            if (ROW_TAG.equals(localName)) {
+                lastCol = -1;
+                String r = attributes.getValue(REFERENCE_ATTRIBUTE);
+                if (r != null) {
+                    int rowNum = Integer.parseInt(r) - 1;
+                    if (options.isAfterRowRange(rowNum)) {
+                        throw StopSheetException.INSTANCE;
+                    }
+                    rowInRange = options.isInRowRange(rowNum);
+                }
+            } else if (CELL_TAG.equals(localName)) {
+                if (!rowInRange) {
+                    skipDepth = 1;
+                    return;
+                }
+                // r属性可以省略，省略时为上一个单元格(含跳过的单元格)的下一列
+                String r = attributes.getValue(REFERENCE_ATTRIBUTE);
+                int col = r == null ? lastCol + 1 : columnIndex(r);
+                lastCol = col;
+                if (!listener.isColumnRequired(col)) {
+                    skipDepth = 1;
+                    return;
+                }
+                sheetHandler.startCell(col);
+                String type = attributes.getValue(TYPE_ATTRIBUTE);
+                if (type == null || NUMBER_TYPE.equals(type) || SHARED_STRING_TYPE.equals(type)) {
+                    valueCell = true;
+                    valueCellShared = SHARED_STRING_TYPE.equals(type);
+                    valueCellStyle = attributes.getValue(STYLE_ATTRIBUTE);
+                    return;
+                }
+            }
+            delegate.startElement(uri, localName, qName, attributes);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if (skipDepth > 0) {
+                skipDepth--;
+                return;
+            }
+            if (valueCell) {
+                if (VALUE_TAG.equals(localName)) {
+                    valueOpen = false;
+                    sheetHandler.value(valueCellShared ? sharedString() : numericValue());
+                } else if (CELL_TAG.equals(localName)) {
+                    valueCell = false;
+                }
+                return;
+            }
+            delegate.endElement(uri, localName, qName);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            if (valueOpen) {
+                cellValue.append(ch, start, length);
+            } else if (skipDepth == 0 && !valueCell) {
+                delegate.characters(ch, start, length);
+            }
+        }
+
+        private String sharedString() {
+            try {
+                return strings.get(Integer.parseInt(cellValue.toString().trim()));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        /**
+         * 数值单元格取原值，不是数值时按文本
+         */
+        private Object numericValue() {
+            String text = cellValue.toString();
+            try {
+                return ExcelCellReader.numericValue(Double.parseDouble(text), isDateStyle(valueCellStyle));
+            } catch (NumberFormatException e) {
+                return text;
+            }
+        }
+
+        /**
+         * 样式的数据格式是否为日期，没有s属性时取默认样式，与XSSFSheetXMLHandler一致
+         */
+        private boolean isDateStyle(String style) {
+            Boolean date = dateStyles.get(style);
+            if (date == null) {
+                XSSFCellStyle cellStyle = null;
+                if (styles != null) {
+                    cellStyle = style != null ? styles.getStyleAt(Integer.parseInt(style))
+                            : styles.getNumCellStyles() > 0 ? styles.getStyleAt(0) : null;
+                }
+                date = cellStyle != null && ExcelCellReader.isDateFormat(cellStyle.getDataFormat(), cellStyle.getDataFormatString());
+                dateStyles.put(style, date);
+            }
+            return date;
+        }
+
+        @Override
+        public void startDocument() throws SAXException {
+            delegate.startDocument();
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            delegate.endDocument();
+        }
+    }
+
+    /**
+     * 超出行范围时中断sheet解析
+     */
+    private static class StopSheetException extends SAXException {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final StopSheetException INSTANCE = new StopSheetException();
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * 数值按原值输出(不带千分位等显示格式)，日期按yyyy-MM-dd HH:mm:ss / yyyy-MM-dd输出，便于后续转换
+     */
+    private static class RawValueFormatter extends DataFormatter {
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            return ExcelCellReader.numericValue(value, formatIndex, formatString, use1904Windowing).toString();
+        }
+    }
+}
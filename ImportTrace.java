@@ -0,0 +1,177 @@
+package com.lvyou.micro.utils.excel;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * 单次导入的指标收集，导入结束时一次性提交给{@link ExcelMetrics}；
+ * 未注册指标实现时使用{@link #DISABLED}，各方法直接返回，不计时、不包装行回调
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-08
+ */
+final class ImportTrace {
+
+    static final ImportTrace DISABLED = new ImportTrace(ExcelMetrics.NOOP, false);
+
+    private final ExcelMetrics metrics;
+    private final boolean enabled;
+    private final long startNanos;
+    private final AtomicLong firstSheetNanos = new AtomicLong();
+    private final LongAdder sheets = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder cells = new LongAdder();
+    private final LongAdder convertNanos = new LongAdder();
+    private final LongAdder inlineConvertNanos = new LongAdder();
+    private final LongAdder validateNanos = new LongAdder();
+    private long openStartNanos;
+    private long readEndNanos;
+
+    private ImportTrace(ExcelMetrics metrics, boolean enabled) {
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.startNanos = enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * 开始一次导入
+     *
+     * @return ImportTrace
+     */
+    static ImportTrace start() {
+        return ExcelInstrumentation.isEnabled() ? new ImportTrace(ExcelInstrumentation.getMetrics(), true) : DISABLED;
+    }
+
+    /**
+     * 当前时间，未启用时为0
+     */
+    long time() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    void bytesRead(long bytes) {
+        if (enabled) {
+            metrics.recordImportBytes(bytes);
+        }
+    }
+
+    /**
+     * 开始打开工作薄，到第一个sheet开始解析为打开阶段
+     */
+    void opening() {
+        if (enabled) {
+            openStartNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * 包装行回调统计sheet、行、单元格数
+     *
+     * @param listener   行回调
+     * @param converting 回调中是否逐行转对象(回调耗时计入转换阶段)
+     * @return ExcelRowListener
+     */
+    ExcelRowListener listen(ExcelRowListener listener, boolean converting) {
+        return enabled ? new TracingListener(listener, converting) : listener;
+    }
+
+    /**
+     * 全部行读取完成
+     */
+    void rowsRead() {
+        if (enabled) {
+            readEndNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * 累计转换耗时(多线程转换时为各线程耗时之和)
+     *
+     * @param startNanos 开始时间，{@link #time()}
+     */
+    void converted(long startNanos) {
+        if (enabled) {
+            convertNanos.add(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * 累计业务校验耗时，校验在转换过程中执行，提交时从转换阶段中扣除
+     *
+     * @param startNanos 开始时间，{@link #time()}
+     */
+    void validated(long startNanos) {
+        if (enabled) {
+            validateNanos.add(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * 导入结束，提交指标
+     *
+     * @param objects 转换的对象数
+     */
+    void finish(long objects) {
+        if (!enabled) {
+            return;
+        }
+        long endNanos = System.nanoTime();
+        long readEnd = readEndNanos == 0 ? endNanos : readEndNanos;
+        long firstSheet = firstSheetNanos.get() == 0 ? readEnd : firstSheetNanos.get();
+        if (openStartNanos != 0) {
+            metrics.recordImportPhase(ExcelMetrics.ImportPhase.OPEN, firstSheet - openStartNanos);
+        }
+        metrics.recordImportPhase(ExcelMetrics.ImportPhase.READ_ROWS, Math.max(0L, readEnd - firstSheet - inlineConvertNanos.sum()));
+        long validate = validateNanos.sum();
+        metrics.recordImportPhase(ExcelMetrics.ImportPhase.CONVERT, Math.max(0L, convertNanos.sum() - validate));
+        if (validate > 0) {
+            metrics.recordImportPhase(ExcelMetrics.ImportPhase.VALIDATE, validate);
+        }
+        metrics.recordImportParsed(sheets.sum(), rows.sum(), cells.sum());
+        metrics.recordImport(objects, endNanos - startNanos);
+    }
+
+    private class TracingListener implements ExcelRowListener {
+
+        private final ExcelRowListener delegate;
+        private final boolean converting;
+
+        TracingListener(ExcelRowListener delegate, boolean converting) {
+            this.delegate = delegate;
+            this.converting = converting;
+        }
+
+        @Override
+        public void onSheetStart(int sheetIndex, String sheetName) {
+            firstSheetNanos.compareAndSet(0L, System.nanoTime());
+            sheets.increment();
+            delegate.onSheetStart(sheetIndex, sheetName);
+        }
+
+        @Override
+        public void onRow(int sheetIndex, int rowNum, List<Object> row) {
+            rows.increment();
+            cells.add(row.size());
+            if (!converting) {
+                delegate.onRow(sheetIndex, rowNum, row);
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                delegate.onRow(sheetIndex, rowNum, row);
+            } finally {
+                long nanos = System.nanoTime() - start;
+                convertNanos.add(nanos);
+                inlineConvertNanos.add(nanos);
+            }
+        }
+
+        @Override
+        public boolean isColumnRequired(int columnIndex) {
+            return delegate.isColumnRequired(columnIndex);
+        }
+    }
+}
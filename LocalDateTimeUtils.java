@@ -16,13 +16,24 @@ public class LocalDateTimeUtils {
 
     private static DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("[yyyy/MM/dd][yyyy-MM-dd]");
     private static DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("[yyyy-MM-dd HH:mm:ss][yyyy/MM/dd HH:mm:ss]");
-    private static String defaultTimestr = "1900-01-01 00:00:00";
+    /**
+     * 格式化用(可选段格式化时会把两段都输出)
+     */
+    private static final DateTimeFormatter PRINT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final LocalDateTime DEFAULT_LOCAL_DATE_TIME = LocalDateTime.of(1900, 1, 1, 0, 0, 0);
+
+    /**
+     * 解析结果缓存大小(2的幂)，导入时同一列日期重复率高
+     */
+    private static final int PARSE_CACHE_SIZE = 256;
+    private static final ParsedValue[] DATE_CACHE = new ParsedValue[PARSE_CACHE_SIZE];
+    private static final ParsedValue[] DATE_TIME_CACHE = new ParsedValue[PARSE_CACHE_SIZE];
 
     private LocalDateTimeUtils() {
     }
 
     public static LocalDateTime getDefaultLocalDateTime() {
-        return LocalDateTime.parse(defaultTimestr, dateTimeFormatter);
+        return DEFAULT_LOCAL_DATE_TIME;
     }
 
     /**
@@ -88,7 +99,17 @@ public class LocalDateTimeUtils {
      * @date 9:28 2021/11/23
      */
     public static LocalDate convertTimeStrToLocalDate(String str) {
-        return LocalDate.parse(str, dateFormatter);
+        int slot = str.hashCode() & (PARSE_CACHE_SIZE - 1);
+        ParsedValue cached = DATE_CACHE[slot];
+        if (cached != null && cached.text.equals(str)) {
+            return (LocalDate) cached.value;
+        }
+        LocalDate date = str.length() == 10 ? parseDate(str) : null;
+        if (date == null) {
+            date = LocalDate.parse(str, dateFormatter);
+        }
+        DATE_CACHE[slot] = new ParsedValue(str, date);
+        return date;
     }
 
     /**
@@ -100,7 +121,66 @@ public class LocalDateTimeUtils {
      * @date 9:28 2021/11/23
      */
     public static LocalDateTime convertTimeStrToLocalDateTime(String str) {
-        return LocalDateTime.parse(str, dateTimeFormatter);
+        int slot = str.hashCode() & (PARSE_CACHE_SIZE - 1);
+        ParsedValue cached = DATE_TIME_CACHE[slot];
+        if (cached != null && cached.text.equals(str)) {
+            return (LocalDateTime) cached.value;
+        }
+        LocalDateTime time = str.length() == 19 ? parseDateTime(str) : null;
+        if (time == null) {
+            time = LocalDateTime.parse(str, dateTimeFormatter);
+        }
+        DATE_TIME_CACHE[slot] = new ParsedValue(str, time);
+        return time;
+    }
+
+    /**
+     * 固定格式yyyy-MM-dd / yyyy/MM/dd快速解析(只读前10个字符)，不是该格式或取值需要格式化器处理(如2月30日)时返回null
+     */
+    private static LocalDate parseDate(String str) {
+        char separator = str.charAt(4);
+        if ((separator != '-' && separator != '/') || str.charAt(7) != separator) {
+            return null;
+        }
+        int year = parseDigits(str, 0, 4);
+        int month = parseDigits(str, 5, 7);
+        int day = parseDigits(str, 8, 10);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > 28 && day > Month.of(month).length(Year.isLeap(year))) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    /**
+     * 固定格式yyyy-MM-dd HH:mm:ss / yyyy/MM/dd HH:mm:ss快速解析，不是该格式或取值需要格式化器处理时返回null
+     */
+    private static LocalDateTime parseDateTime(String str) {
+        if (str.charAt(10) != ' ' || str.charAt(13) != ':' || str.charAt(16) != ':') {
+            return null;
+        }
+        LocalDate date = parseDate(str);
+        int hour = parseDigits(str, 11, 13);
+        int minute = parseDigits(str, 14, 16);
+        int second = parseDigits(str, 17, 19);
+        if (date == null || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+        return LocalDateTime.of(date.getYear(), date.getMonthValue(), date.getDayOfMonth(), hour, minute, second);
+    }
+
+    /**
+     * 解析[start, end)的十进制数字，含非数字时返回-1
+     */
+    private static int parseDigits(String str, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = str.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
     }
 
     /**
@@ -112,7 +192,7 @@ public class LocalDateTimeUtils {
      * @date 9:28 2021/11/23
      */
     public static Boolean isDefaultLocalDateTime(LocalDateTime time) {
-        return time.equals(LocalDateTime.parse(defaultTimestr, dateTimeFormatter));
+        return time.equals(DEFAULT_LOCAL_DATE_TIME);
     }
 
     /**
@@ -125,7 +205,7 @@ public class LocalDateTimeUtils {
      */
     public static Boolean isDefaultLocalDate(LocalDate time) {
         LocalDateTime localDateTime = convertLocalDateToLocalDateTime(time);
-        return LocalDateTime.parse(defaultTimestr, dateTimeFormatter).equals(localDateTime);
+        return DEFAULT_LOCAL_DATE_TIME.equals(localDateTime);
     }
 
     /**
@@ -161,7 +241,7 @@ public class LocalDateTimeUtils {
      * @date 9:28 2021/11/23
      */
     public static String formatTime(LocalDateTime time) {
-        return time.format(dateTimeFormatter);
+        return time.format(PRINT_FORMATTER);
     }
 
     /**
@@ -261,4 +341,18 @@ public class LocalDateTimeUtils {
                 .withSecond(59)
                 .withNano(999999999);
     }
-}
\ No newline at end of file
+
+    /**
+     * 解析缓存项，不可变，多线程下整体替换
+     */
+    private static final class ParsedValue {
+
+        private final String text;
+        private final Object value;
+
+        ParsedValue(String text, Object value) {
+            this.text = text;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.lvyou.micro.utils.excel;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 基于Micrometer的导入导出指标，使用：ExcelInstrumentation.setMetrics(new MicrometerExcelMetrics(meterRegistry))
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-08
+ */
+public class MicrometerExcelMetrics implements ExcelMetrics {
+
+    private final MeterRegistry registry;
+    private final DistributionSummary importBytes;
+    private final Map<ImportPhase, Timer> importPhaseTimers = new EnumMap<>(ImportPhase.class);
+    private final Counter importSheets;
+    private final Counter importRows;
+    private final Counter importCells;
+    private final Timer importTimer;
+    private final DistributionSummary importRowsPerSecond;
+    /**
+     * 按列名缓存转换失败计数器，列名来自导入对象的字段注解，数量有限
+     */
+    private final Map<String, Counter> conversionFailures = new ConcurrentHashMap<>();
+    private final Timer exportCreateTimer;
+    private final Counter exportRows;
+    private final Timer exportWriteTimer;
+    private final DistributionSummary exportBytes;
+
+    public MicrometerExcelMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.importBytes = DistributionSummary.builder("excel.import.bytes").baseUnit("bytes")
+                .description("导入文件大小").register(registry);
+        for (ImportPhase phase : ImportPhase.values()) {
+            importPhaseTimers.put(phase, Timer.builder("excel.import.phase").tag("phase", phase.name().toLowerCase())
+                    .description("导入各阶段耗时").register(registry));
+        }
+        this.importSheets = Counter.builder("excel.import.sheets").description("导入解析的sheet数").register(registry);
+        this.importRows = Counter.builder("excel.import.rows").description("导入解析的行数").register(registry);
+        this.importCells = Counter.builder("excel.import.cells").description("导入解析的单元格数").register(registry);
+        this.importTimer = Timer.builder("excel.import").description("导入总耗时").register(registry);
+        this.importRowsPerSecond = DistributionSummary.builder("excel.import.rows.per.second")
+                .description("导入每秒转换行数").register(registry);
+        this.exportCreateTimer = Timer.builder("excel.export.create").description("导出写入工作薄耗时").register(registry);
+        this.exportRows = Counter.builder("excel.export.rows").description("导出行数").register(registry);
+        this.exportWriteTimer = Timer.builder("excel.export.write").description("导出输出文件耗时").register(registry);
+        this.exportBytes = DistributionSummary.builder("excel.export.bytes").baseUnit("bytes")
+                .description("导出文件大小").register(registry);
+    }
+
+    @Override
+    public void recordImportBytes(long bytes) {
+        importBytes.record(bytes);
+    }
+
+    @Override
+    public void recordImportPhase(ImportPhase phase, long nanos) {
+        importPhaseTimers.get(phase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordImportParsed(long sheets, long rows, long cells) {
+        importSheets.increment(sheets);
+        importRows.increment(rows);
+        importCells.increment(cells);
+    }
+
+    @Override
+    public void recordImport(long objects, long nanos) {
+        importTimer.record(nanos, TimeUnit.NANOSECONDS);
+        if (nanos > 0) {
+            importRowsPerSecond.record(objects * (double) TimeUnit.SECONDS.toNanos(1) / nanos);
+        }
+    }
+
+    @Override
+    public void recordConversionFailure(String columnName) {
+        conversionFailures.computeIfAbsent(columnName, column -> Counter.builder("excel.import.conversion.failures")
+                .tag("column", column).description("单元格转换失败次数").register(registry)).increment();
+    }
+
+    @Override
+    public void recordExportCreate(long rows, long nanos) {
+        exportCreateTimer.record(nanos, TimeUnit.NANOSECONDS);
+        exportRows.increment(rows);
+    }
+
+    @Override
+    public void recordExportWrite(long bytes, long nanos) {
+        exportWriteTimer.record(nanos, TimeUnit.NANOSECONDS);
+        exportBytes.record(bytes);
+    }
+}
@@ -0,0 +1,86 @@
+package com.lvyou.micro.utils.excel.benchmark;
+
+import com.lvyou.micro.utils.excel.ExcelExportField;
+import io.swagger.annotations.ApiModelProperty;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * <p>
+ * 基准测试用行对象，导入按@ApiModelProperty、导出按@ExcelExportField映射
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-06
+ */
+public class BenchmarkRow {
+
+    static final String[] COLUMN_NAMES = {"名称", "金额", "日期", "时间", "数量", "备注"};
+
+    @ApiModelProperty("名称")
+    @ExcelExportField(value = "名称", sort = 1)
+    private String name;
+
+    @ApiModelProperty("金额")
+    @ExcelExportField(value = "金额", sort = 2)
+    private BigDecimal amount;
+
+    @ApiModelProperty("日期")
+    @ExcelExportField(value = "日期", sort = 3)
+    private LocalDate day;
+
+    @ApiModelProperty("时间")
+    @ExcelExportField(value = "时间", sort = 4, dataPattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime time;
+
+    @ApiModelProperty("数量")
+    @ExcelExportField(value = "数量", sort = 5)
+    private Integer quantity;
+
+    @ApiModelProperty("备注")
+    @ExcelExportField(value = "备注", sort = 6)
+    private String remark;
+
+    /**
+     * 按行号生成确定的数据：名称重复率高(共享字符串)，备注各不相同
+     *
+     * @param index 行号
+     * @return BenchmarkRow
+     */
+    static BenchmarkRow of(int index) {
+        BenchmarkRow row = new BenchmarkRow();
+        row.name = "商品" + (index % 100);
+        row.amount = BigDecimal.valueOf(index % 100000, 2);
+        row.day = LocalDate.of(2022, 1, 1).plusDays(index % 365);
+        row.time = LocalDateTime.of(2022, 1, 1, 8, 0, 0).plusSeconds(index * 37L);
+        row.quantity = index % 1000;
+        row.remark = "备注remark-" + index;
+        return row;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public String getRemark() {
+        return remark;
+    }
+}
@@ -0,0 +1,93 @@
+package com.lvyou.micro.utils.excel.benchmark;
+
+import com.lvyou.micro.utils.excel.ExcelExportUtil;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 导出基准：createWorkbook + write，输出写到只计数的流，不计磁盘IO。
+ * xssf为全量XSSFWorkbook，sxssf为流式导出使用的SXSSFWorkbook。
+ * 运行：java -Xmx8g -jar target/benchmarks.jar ExcelExportBenchmark -prof gc
+ * -prof com.lvyou.micro.utils.excel.benchmark.PeakHeapProfiler
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-06
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ExcelExportBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"xssf", "sxssf"})
+    private String workbookType;
+
+    private List<BenchmarkRow> data;
+
+    @Setup
+    public void setUp() {
+        data = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            data.add(BenchmarkRow.of(i));
+        }
+    }
+
+    @Benchmark
+    public long export() throws Exception {
+        Workbook workbook = "sxssf".equals(workbookType) ? new SXSSFWorkbook(null, SXSSFWorkbook.DEFAULT_WINDOW_SIZE, true) : new XSSFWorkbook();
+        try {
+            ExcelExportUtil.createWorkbook(workbook, data, BenchmarkRow.class);
+            CountingOutputStream out = new CountingOutputStream();
+            workbook.write(out);
+            return out.count;
+        } finally {
+            if (workbook instanceof SXSSFWorkbook) {
+                ((SXSSFWorkbook) workbook).dispose();
+            }
+            workbook.close();
+        }
+    }
+
+    /**
+     * 丢弃内容只计字节数
+     */
+    private static class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            count += len;
+        }
+    }
+}
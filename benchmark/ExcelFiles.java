@@ -0,0 +1,115 @@
+package com.lvyou.micro.utils.excel.benchmark;
+
+import com.lvyou.micro.utils.LocalDateTimeUtils;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+/**
+ * <p>
+ * 生成基准测试用的excel文件：每个sheet前2行为标题(导入时忽略)，第1个sheet第3行为表头，之后为数据；
+ * 列为 文本/数值/日期单元格/日期文本/整数/不重复文本。
+ * .xls单个sheet最多65536行，超出时续写到下一个sheet(导入时多个sheet按顺序拼接)。
+ * xlsx为内联字符串；xlsx-sst的文本写入共享字符串表(与Excel保存的文件一致)，用于比较共享字符串表的内存占用。
+ * 文件生成在java.io.tmpdir下，已存在时直接复用
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-06
+ */
+final class ExcelFiles {
+
+    /**
+     * 导入参数：开头忽略2行、第1行为列名、第2行开始为数据、结尾不忽略
+     */
+    static final int IGNORE_START_ROW_NUM = 2;
+    static final int COLUMNS_NAME_ROW_NUM = 1;
+    static final int DATA_START_ROW_NUM = 2;
+    static final int IGNORE_END_ROW_NUM = 0;
+
+    /**
+     * 文本写入共享字符串表的.xlsx
+     */
+    static final String XLSX_SHARED_STRINGS = "xlsx-sst";
+
+    private static final int SHEET_HEAD_ROW_NUM = 2;
+    private static final int XLS_MAX_ROWS = 65536;
+    private static final int XLSX_MAX_ROWS = 1048576;
+
+    private ExcelFiles() {
+        //do nothing
+    }
+
+    /**
+     * 获取(不存在时生成)指定行数的文件
+     *
+     * @param rows   数据行数
+     * @param format xls / xlsx / xlsx-sst
+     * @return File
+     */
+    static File get(int rows, String format) throws IOException {
+        boolean sharedStrings = XLSX_SHARED_STRINGS.equals(format);
+        String suffix = sharedStrings ? "-sst.xlsx" : "." + format;
+        File file = new File(System.getProperty("java.io.tmpdir"), "excel-benchmark-" + rows + suffix);
+        if (file.isFile()) {
+            return file;
+        }
+        File tempFile = File.createTempFile("excel-benchmark", suffix);
+        boolean xls = "xls".equals(format);
+        Workbook workbook = xls ? new HSSFWorkbook()
+                : new SXSSFWorkbook(null, SXSSFWorkbook.DEFAULT_WINDOW_SIZE, false, sharedStrings);
+        try (OutputStream out = Files.newOutputStream(tempFile.toPath())) {
+            write(workbook, rows, xls ? XLS_MAX_ROWS : XLSX_MAX_ROWS);
+            workbook.write(out);
+        } finally {
+            if (workbook instanceof SXSSFWorkbook) {
+                ((SXSSFWorkbook) workbook).dispose();
+            }
+            workbook.close();
+        }
+        if (!tempFile.renameTo(file)) {
+            throw new IOException("无法生成文件：" + file);
+        }
+        return file;
+    }
+
+    private static void write(Workbook workbook, int rows, int maxSheetRows) {
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+        Sheet sheet = null;
+        int rowNum = maxSheetRows;
+        for (int i = -1; i < rows; i++) {
+            if (rowNum == maxSheetRows) {
+                sheet = workbook.createSheet("sheet" + (workbook.getNumberOfSheets() + 1));
+                sheet.createRow(0).createCell(0).setCellValue("基准测试数据");
+                sheet.createRow(1).createCell(0).setCellValue(rows + "行");
+                rowNum = SHEET_HEAD_ROW_NUM;
+            }
+            Row row = sheet.createRow(rowNum++);
+            if (i < 0) {
+                for (int j = 0; j < BenchmarkRow.COLUMN_NAMES.length; j++) {
+                    row.createCell(j).setCellValue(BenchmarkRow.COLUMN_NAMES[j]);
+                }
+                continue;
+            }
+            BenchmarkRow data = BenchmarkRow.of(i);
+            row.createCell(0).setCellValue(data.getName());
+            row.createCell(1).setCellValue(data.getAmount().doubleValue());
+            Cell dayCell = row.createCell(2);
+            dayCell.setCellValue(LocalDateTimeUtils.convertLocalDateToLocalDateTime(data.getDay()));
+            dayCell.setCellStyle(dateStyle);
+            row.createCell(3).setCellValue(LocalDateTimeUtils.formatTime(data.getTime()));
+            row.createCell(4).setCellValue(data.getQuantity());
+            row.createCell(5).setCellValue(data.getRemark());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.lvyou.micro.utils.excel.benchmark;
+
+import com.lvyou.micro.utils.excel.ExcelImportUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 导入基准：上传请求 → 解析 → changeToObjList，
+ * workbook为原有全量Workbook解析，stream为流式解析(.xlsx走SAX)；xlsx-sst的文本在共享字符串表中。
+ * 运行：java -Xmx8g -jar target/benchmarks.jar ExcelImportBenchmark -prof gc
+ * -prof com.lvyou.micro.utils.excel.benchmark.PeakHeapProfiler
+ * 只跑小文件：-p rows=10000
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-06
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ExcelImportBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"xls", "xlsx", ExcelFiles.XLSX_SHARED_STRINGS})
+    private String format;
+
+    private byte[] body;
+    private HttpServletRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        body = MultipartRequests.body(ExcelFiles.get(rows, format));
+    }
+
+    /**
+     * 请求体只能读一次，每次调用前重新包装
+     */
+    @Setup(Level.Invocation)
+    public void newRequest() {
+        request = MultipartRequests.of(body);
+    }
+
+    @Benchmark
+    public List<BenchmarkRow> workbook() throws Exception {
+        return ExcelImportUtil.getDataListFromExcelFile(request, BenchmarkRow.class, ExcelFiles.IGNORE_START_ROW_NUM,
+                ExcelFiles.COLUMNS_NAME_ROW_NUM, ExcelFiles.DATA_START_ROW_NUM, ExcelFiles.IGNORE_END_ROW_NUM);
+    }
+
+    @Benchmark
+    public List<BenchmarkRow> stream() throws Exception {
+        return ExcelImportUtil.getDataListFromExcelFileByStream(request, BenchmarkRow.class, ExcelFiles.IGNORE_START_ROW_NUM,
+                ExcelFiles.COLUMNS_NAME_ROW_NUM, ExcelFiles.DATA_START_ROW_NUM, ExcelFiles.IGNORE_END_ROW_NUM);
+    }
+}
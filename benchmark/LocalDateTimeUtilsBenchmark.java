@@ -0,0 +1,116 @@
+package com.lvyou.micro.utils.excel.benchmark;
+
+import com.lvyou.micro.utils.LocalDateTimeUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * LocalDateTimeUtils日期解析与原可选段格式化器解析对比，以及导入导出用到的日期转换、格式化，
+ * distinct为4096个不同值(基本不命中缓存，测快速解析)，repeated为16个重复值(测缓存命中)
+ * 运行：java -jar target/benchmarks.jar LocalDateTimeUtilsBenchmark -prof gc
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-05
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocalDateTimeUtilsBenchmark {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("[yyyy/MM/dd][yyyy-MM-dd]");
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("[yyyy-MM-dd HH:mm:ss][yyyy/MM/dd HH:mm:ss]");
+    private static final int DISTINCT_SIZE = 4096;
+    private static final int REPEATED_SIZE = 16;
+
+    private String[] distinctDates;
+    private String[] distinctDateTimes;
+    private String[] repeatedDates;
+    private Date date;
+    private LocalDateTime localDateTime;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime start = LocalDateTime.of(2020, 1, 1, 8, 30, 0);
+        distinctDates = new String[DISTINCT_SIZE];
+        distinctDateTimes = new String[DISTINCT_SIZE];
+        for (int i = 0; i < DISTINCT_SIZE; i++) {
+            LocalDateTime time = start.plusDays(i).plusSeconds(i);
+            distinctDates[i] = time.toLocalDate().toString();
+            distinctDateTimes[i] = LocalDateTimeUtils.formatTime(time);
+        }
+        repeatedDates = new String[REPEATED_SIZE];
+        System.arraycopy(distinctDates, 0, repeatedDates, 0, REPEATED_SIZE);
+        localDateTime = start;
+        date = LocalDateTimeUtils.convertLocalDateTimeToDate(start);
+    }
+
+    private String next(String[] values) {
+        index = (index + 1) & (values.length - 1);
+        return values[index];
+    }
+
+    @Benchmark
+    public LocalDate dateFormatterDistinct() {
+        return LocalDate.parse(next(distinctDates), DATE_FORMATTER);
+    }
+
+    @Benchmark
+    public LocalDate dateUtilsDistinct() {
+        return LocalDateTimeUtils.convertTimeStrToLocalDate(next(distinctDates));
+    }
+
+    @Benchmark
+    public LocalDate dateFormatterRepeated() {
+        return LocalDate.parse(next(repeatedDates), DATE_FORMATTER);
+    }
+
+    @Benchmark
+    public LocalDate dateUtilsRepeated() {
+        return LocalDateTimeUtils.convertTimeStrToLocalDate(next(repeatedDates));
+    }
+
+    @Benchmark
+    public LocalDateTime dateTimeFormatterDistinct() {
+        return LocalDateTime.parse(next(distinctDateTimes), DATE_TIME_FORMATTER);
+    }
+
+    @Benchmark
+    public LocalDateTime dateTimeUtilsDistinct() {
+        return LocalDateTimeUtils.convertTimeStrToLocalDateTime(next(distinctDateTimes));
+    }
+
+    @Benchmark
+    public String formatTime() {
+        return LocalDateTimeUtils.formatTime(localDateTime);
+    }
+
+    @Benchmark
+    public LocalDateTime convertDateToLocalDateTime() {
+        return LocalDateTimeUtils.convertDateToLocalDateTime(date);
+    }
+
+    @Benchmark
+    public boolean isDefaultLocalDateTime() {
+        return LocalDateTimeUtils.isDefaultLocalDateTime(LocalDateTime.MIN);
+    }
+}
@@ -0,0 +1,100 @@
+package com.lvyou.micro.utils.excel.benchmark;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * <p>
+ * 构造上传文件的multipart请求，只实现commons-fileupload解析时用到的方法
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-09-06
+ */
+final class MultipartRequests {
+
+    private static final String BOUNDARY = "----ExcelBenchmarkBoundary";
+
+    private MultipartRequests() {
+        //do nothing
+    }
+
+    /**
+     * 生成multipart请求体，基准方法每次调用前用{@link #of(byte[])}包装成新请求
+     *
+     * @param file 上传的文件
+     * @return byte[] 请求体
+     */
+    static byte[] body(File file) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length() + 512);
+        out.write(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + file.getName() + "\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        out.write(Files.readAllBytes(file.toPath()));
+        out.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    /**
+     * 包装请求体为HttpServletRequest
+     *
+     * @param body 请求体
+     * @return HttpServletRequest
+     */
+    static HttpServletRequest of(byte[] body) {
+        ByteArrayInputStream in = new ByteArrayInputStream(body);
+        ServletInputStream inputStream = new ServletInputStream() {
+            @Override
+            public int read() {
+                return in.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return in.read(b, off, len);
+            }
+
+            @Override
+            public boolean isFinished() {
+                return in.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                //do nothing
+            }
+        };
+        return (HttpServletRequest) Proxy.newProxyInstance(MultipartRequests.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getContentType":
+                            return "multipart/form-data; boundary=" + BOUNDARY;
+                        case "getContentLength":
+                            return body.length;
+                        case "getContentLengthLong":
+                            return (long) body.length;
+                        case "getInputStream":
+                            return inputStream;
+                        case "getCharacterEncoding":
+                            return StandardCharsets.UTF_8.name();
+                        case "getMethod":
+                            return "POST";
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
@@ -0,0 +1,107 @@
+package com.lvyou.micro.utils.excel;
+
+import io.swagger.annotations.ApiModelProperty;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <p>
+ * 绑定计划：流式解析的行在最后一个非空单元格处结束，末尾绑定列为空的行按空值转换；Error不转为导入错误
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-10-08
+ */
+class ExcelBindingPlanTest {
+
+    public static class ShortRowDto {
+        @ApiModelProperty("名称")
+        private String name;
+        @ApiModelProperty("数量")
+        private Integer quantity;
+        @ApiModelProperty("备注")
+        private String remark;
+    }
+
+    public static class ErrorDto {
+        @ApiModelProperty("名称")
+        private String name;
+
+        public ErrorDto() {
+            throw new OutOfMemoryError("ctor");
+        }
+    }
+
+    private static ExcelBindingPlan<ShortRowDto> plan() {
+        List<Object> header = Arrays.asList("名称", "数量", "备注");
+        return ExcelBindingPlan.of(ShortRowDto.class, ExcelHeaderResolver.of(Collections.singletonList(header)));
+    }
+
+    @Test
+    void bindShortRow() {
+        ShortRowDto dto = plan().bind(Collections.singletonList("a"));
+        assertEquals("a", dto.name);
+        assertNull(dto.quantity);
+        assertEquals("", dto.remark);
+    }
+
+    @Test
+    void bindShortRowCollectingErrors() {
+        List<String> errors = new ArrayList<>();
+        ShortRowDto dto = plan().bind(Collections.singletonList("a"), (columnIndex, columnName, value, message) -> errors.add(message));
+        assertTrue(errors.isEmpty());
+        assertEquals("a", dto.name);
+        assertNull(dto.quantity);
+    }
+
+    @Test
+    void bindStreamRowWithEmptyTrailingColumns() throws IOException {
+        File file = File.createTempFile("short-row", ".xlsx");
+        try {
+            try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file.toPath())) {
+                Sheet sheet = workbook.createSheet();
+                Row header = sheet.createRow(0);
+                header.createCell(0).setCellValue("名称");
+                header.createCell(1).setCellValue("数量");
+                header.createCell(2).setCellValue("备注");
+                sheet.createRow(1).createCell(0).setCellValue("a");
+                workbook.write(out);
+            }
+            List<List<Object>> rows = new ArrayList<>();
+            ExcelXlsxStreamReader.read(file, new ExcelImportOptions().setSheetHeadRowNum(0), (sheetIndex, rowNum, row) -> rows.add(row));
+            assertEquals(2, rows.size());
+            assertEquals(1, rows.get(1).size());
+            ExcelBindingPlan<ShortRowDto> plan = ExcelBindingPlan.of(ShortRowDto.class, ExcelHeaderResolver.of(rows.subList(0, 1)));
+            ShortRowDto dto = plan.bind(rows.get(1));
+            assertEquals("a", dto.name);
+            assertNull(dto.quantity);
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    @Test
+    void bindRethrowsErrors() {
+        ExcelBindingPlan<ErrorDto> plan = ExcelBindingPlan.of(ErrorDto.class,
+                ExcelHeaderResolver.of(Collections.singletonList(Collections.singletonList("名称"))));
+        assertThrows(OutOfMemoryError.class, () -> plan.bind(Collections.singletonList("a")));
+        assertThrows(OutOfMemoryError.class, () -> plan.bind(Collections.singletonList("a"), (columnIndex, columnName, value, message) -> {
+        }));
+    }
+}
@@ -0,0 +1,122 @@
+package com.lvyou.micro.utils.excel;
+
+import io.swagger.annotations.ApiModelProperty;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * <p>
+ * 后台导出任务：按迭代器、分页写入导出文件，过期任务不依赖新的提交也会被清理
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-10-08
+ */
+class ExcelExportJobServiceTest {
+
+    public static class JobDto {
+        @ApiModelProperty("序号")
+        private Integer no;
+
+        JobDto(Integer no) {
+            this.no = no;
+        }
+    }
+
+    @Test
+    void exportByPage() throws Exception {
+        ExcelExportJobService service = new ExcelExportJobService(1, 1);
+        try {
+            List<Integer> queried = new ArrayList<>();
+            ExcelExportJob job = service.submitByPage("page", JobDto.class, pageNo -> {
+                queried.add(pageNo);
+                return pageNo <= 3 ? pageOf(pageNo) : Collections.emptyList();
+            });
+            awaitFinish(job);
+
+            assertEquals(ExcelExportJob.Status.DONE, job.getStatus());
+            assertEquals(30, job.getRowsWritten());
+            assertEquals(4, queried.size());
+            assertEquals(31, rowCount(job.getFile()));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void exportByIterator() throws Exception {
+        ExcelExportJobService service = new ExcelExportJobService(1, 1);
+        try {
+            ExcelExportJob job = service.submitByIterator("iterator", JobDto.class,
+                    () -> IntStream.range(0, 25).mapToObj(JobDto::new).iterator());
+            awaitFinish(job);
+
+            assertEquals(ExcelExportJob.Status.DONE, job.getStatus());
+            assertEquals(25, job.getRowsWritten());
+            assertEquals(26, rowCount(job.getFile()));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void purgeExpiredJobsWithoutNewSubmission() throws Exception {
+        ExcelExportJobService service = new ExcelExportJobService(1, 1, new File(System.getProperty("java.io.tmpdir")), 20)
+                .setRetentionMillis(0);
+        try {
+            ExcelExportJob job = service.submitByIterator("purge", JobDto.class,
+                    () -> Collections.singletonList(new JobDto(1)).iterator());
+            awaitFinish(job);
+            assertEquals(ExcelExportJob.Status.DONE, job.getStatus());
+            File file = job.getFile();
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (service.getJob(job.getId()) != null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertNull(service.getJob(job.getId()));
+            assertFalse(file.exists());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private static List<JobDto> pageOf(int pageNo) {
+        List<JobDto> page = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            page.add(new JobDto((pageNo - 1) * 10 + i));
+        }
+        return page;
+    }
+
+    private static void awaitFinish(ExcelExportJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (job.getFinishTime() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 表头所在行加数据行数
+     */
+    private static int rowCount(File file) throws Exception {
+        try (InputStream in = Files.newInputStream(file.toPath()); Workbook workbook = new XSSFWorkbook(in)) {
+            Sheet sheet = workbook.getSheetAt(0);
+            return sheet.getPhysicalNumberOfRows();
+        }
+    }
+}
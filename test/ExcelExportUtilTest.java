@@ -0,0 +1,172 @@
+package com.lvyou.micro.utils.excel;
+
+import com.lvyou.micro.exception.ApiException;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <p>
+ * 导出单元格格式：数值列沿用dataPattern默认值(日期格式)时按数值默认格式输出；
+ * 导出到response时工作薄生成成功后才提交响应
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-10-08
+ */
+class ExcelExportUtilTest {
+
+    public static class ExportDto {
+        @ExcelExportField(value = "数量", sort = 1)
+        private Integer quantity = 3;
+        @ExcelExportField(value = "金额", sort = 2)
+        private BigDecimal amount = new BigDecimal("12.5");
+        @ExcelExportField(value = "单价", sort = 3, dataPattern = "#,##0.000")
+        private BigDecimal price = new BigDecimal("1.25");
+        @ExcelExportField(value = "日期", sort = 4)
+        private LocalDate date = LocalDate.of(2022, 10, 8);
+    }
+
+    @Test
+    void numberColumnsWithDefaultPatternUseNumberFormat() throws IOException, IllegalAccessException {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            ExcelExportUtil.createWorkbook(workbook, Collections.singletonList(new ExportDto()), ExportDto.class);
+            Row row = workbook.getSheetAt(0).getRow(1);
+
+            assertNumberCell(row.getCell(0), "0", 3);
+            assertNumberCell(row.getCell(1), "0.00", 12.5);
+            assertNumberCell(row.getCell(2), "#,##0.000", 1.25);
+            Cell date = row.getCell(3);
+            assertEquals(CellType.NUMERIC, date.getCellType());
+            assertTrue(DateUtil.isCellDateFormatted(date));
+        }
+    }
+
+    @Test
+    void numberFormat() {
+        assertEquals("0", ExcelExportUtil.getNumberFormat(Integer.class, "yyyy-MM-dd"));
+        assertEquals("0", ExcelExportUtil.getNumberFormat(Long.TYPE, "yyyy-MM-dd HH:mm:ss"));
+        assertEquals("0.00", ExcelExportUtil.getNumberFormat(BigDecimal.class, "yyyy/MM/dd"));
+        assertEquals("0.00", ExcelExportUtil.getNumberFormat(Double.class, ""));
+        assertEquals("#,##0", ExcelExportUtil.getNumberFormat(Integer.class, "#,##0"));
+    }
+
+    @Test
+    void responseIsWrittenAfterWorkbookIsCreated() throws IOException {
+        FakeResponse response = new FakeResponse();
+        ExcelExportUtil.exportExcel(response.proxy(), "导出", Arrays.asList(new ExportDto(), new ExportDto()), ExportDto.class);
+
+        assertTrue(response.committed);
+        assertTrue(response.headers.get("Content-Disposition").endsWith(".xlsx"));
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(response.body.toByteArray()))) {
+            assertEquals(3, workbook.getSheetAt(0).getPhysicalNumberOfRows());
+        }
+    }
+
+    @Test
+    void responseIsNotCommittedWhenCreateFails() {
+        List<ExportDto> data = new AbstractList<ExportDto>() {
+            @Override
+            public ExportDto get(int index) {
+                if (index == 1) {
+                    throw new ApiException("查询失败");
+                }
+                return new ExportDto();
+            }
+
+            @Override
+            public int size() {
+                return 2;
+            }
+        };
+        FakeResponse response = new FakeResponse();
+        ApiException e = assertThrows(ApiException.class, () -> ExcelExportUtil.exportExcel(response.proxy(), "导出", data, ExportDto.class));
+
+        assertEquals("查询失败", e.getMessage());
+        assertFalse(response.committed);
+        assertFalse(response.outputOpened);
+        assertNull(response.headers.get("Content-Disposition"));
+    }
+
+    private static void assertNumberCell(Cell cell, String format, double value) {
+        assertEquals(CellType.NUMERIC, cell.getCellType());
+        assertEquals(value, cell.getNumericCellValue());
+        assertEquals(format, cell.getCellStyle().getDataFormatString());
+        assertFalse(DateUtil.isCellDateFormatted(cell));
+    }
+
+    /**
+     * 记录响应头、输出内容、是否提交
+     */
+    private static class FakeResponse {
+
+        private final Map<String, String> headers = new HashMap<>();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private boolean committed;
+        private boolean outputOpened;
+
+        HttpServletResponse proxy() {
+            ServletOutputStream outputStream = new ServletOutputStream() {
+                @Override
+                public void write(int b) {
+                    committed = true;
+                    body.write(b);
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                    //do nothing
+                }
+            };
+            return (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{HttpServletResponse.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "setHeader":
+                                headers.put((String) args[0], (String) args[1]);
+                                return null;
+                            case "getOutputStream":
+                                outputOpened = true;
+                                return outputStream;
+                            case "flushBuffer":
+                                committed = true;
+                                return null;
+                            case "isCommitted":
+                                return committed;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.lvyou.micro.utils.excel;
+
+import com.lvyou.micro.exception.ApiException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <p>
+ * 下载器：本地http桩服务验证5xx重试、读取超时、大小限制，以及url导入走下载器重试
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-10-08
+ */
+class ExcelFileFetcherTest {
+
+    private static final byte[] BODY = "a,b\n1,2\n".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void retryOnServerError() throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = start(exchange -> {
+            if (requests.incrementAndGet() <= 2) {
+                respond(exchange, 503, new byte[0]);
+            } else {
+                respond(exchange, 200, BODY);
+            }
+        });
+        try {
+            File file = newFetcher().setMaxRetries(2).fetch(url(server), ".csv");
+            try {
+                assertEquals(3, requests.get());
+                assertEquals(new String(BODY, StandardCharsets.UTF_8), new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+            } finally {
+                Files.deleteIfExists(file.toPath());
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void failAfterRetries() {
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = start(exchange -> {
+            requests.incrementAndGet();
+            respond(exchange, 500, new byte[0]);
+        });
+        try {
+            assertThrows(IOException.class, () -> newFetcher().setMaxRetries(1).fetch(url(server), ".csv"));
+            assertEquals(2, requests.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void notFoundIsNotRetried() {
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = start(exchange -> {
+            requests.incrementAndGet();
+            respond(exchange, 404, new byte[0]);
+        });
+        try {
+            assertThrows(ApiException.class, () -> newFetcher().fetch(url(server), ".csv"));
+            assertEquals(1, requests.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void readTimeout() {
+        HttpServer server = start(exchange -> {
+            sleep(2000);
+            respond(exchange, 200, BODY);
+        });
+        try {
+            long start = System.currentTimeMillis();
+            assertThrows(IOException.class, () -> newFetcher().setReadTimeout(200).setMaxRetries(0).fetch(url(server), ".csv"));
+            assertTrue(System.currentTimeMillis() - start < 1500, "读取超时未生效");
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void contentLengthOverLimit() {
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = start(exchange -> {
+            requests.incrementAndGet();
+            respond(exchange, 200, new byte[1024]);
+        });
+        try {
+            assertThrows(ApiException.class, () -> newFetcher().setMaxBytes(100).fetch(url(server), ".csv"));
+            assertEquals(1, requests.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void chunkedBodyOverLimit() {
+        HttpServer server = start(exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(new byte[1024]);
+            }
+        });
+        try {
+            assertThrows(ApiException.class, () -> newFetcher().setMaxBytes(100).fetch(url(server), ".csv"));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void legacyUrlImportRetries() throws Exception {
+        byte[] xlsx = xlsx();
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = start(exchange -> {
+            if (requests.incrementAndGet() == 1) {
+                respond(exchange, 502, new byte[0]);
+            } else {
+                respond(exchange, 200, xlsx);
+            }
+        });
+        try {
+            List<List<Object>> rows = ExcelImportUtil.getDataListFromExcelFileUrl("a.xlsx", url(server));
+            assertEquals(2, requests.get());
+            assertFalse(rows.isEmpty());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static ExcelFileFetcher newFetcher() {
+        return new ExcelFileFetcher().setRetryIntervalMillis(10);
+    }
+
+    private static byte[] xlsx() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Sheet sheet = workbook.createSheet();
+            for (int i = 0; i < 4; i++) {
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue("a" + i);
+            }
+            workbook.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static HttpServer start(HttpHandler handler) {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", handler);
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String url(HttpServer server) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/file";
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.lvyou.micro.utils.excel;
+
+import com.sun.net.httpserver.HttpServer;
+import io.swagger.annotations.ApiModelProperty;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * <p>
+ * 表头行：默认只有列名行为表头，列名行与数据开始行之间的行忽略；开启多行表头后这些行的列名也参与匹配
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-10-08
+ */
+class ExcelImportHeaderTest {
+
+    /**
+     * 第2行为填写说明，不是表头
+     */
+    private static final String CSV = "名称,数量\n备注,件\na,1\nb,2\n";
+
+    public static class HeaderDto {
+        @ApiModelProperty("名称")
+        private String name;
+        @ApiModelProperty("数量")
+        private Integer quantity;
+        @ApiModelProperty("备注")
+        private String remark;
+    }
+
+    @Test
+    void legacyApiUsesColumnsNameRowOnly() throws Exception {
+        List<HeaderDto> dtoList = withServer(url -> ExcelImportUtil.getDataListFromExcelFileUrl(HeaderDto.class, "a.csv", url, 0, 1, 3, 0));
+
+        assertRows(dtoList);
+        assertNull(dtoList.get(0).remark);
+    }
+
+    @Test
+    void streamIgnoresGapRowsByDefault() throws Exception {
+        List<HeaderDto> dtoList = withServer(url -> ExcelImportUtil.getDataListFromExcelFileUrlByStream(HeaderDto.class, "a.csv", url,
+                0, 1, 3, 0, new ExcelImportOptions()));
+
+        assertRows(dtoList);
+        assertNull(dtoList.get(0).remark);
+    }
+
+    @Test
+    void multiRowHeaderJoinsGapRows() throws Exception {
+        List<HeaderDto> dtoList = withServer(url -> ExcelImportUtil.getDataListFromExcelFileUrlByStream(HeaderDto.class, "a.csv", url,
+                0, 1, 3, 0, new ExcelImportOptions().setMultiRowHeader(true)));
+
+        assertRows(dtoList);
+        assertEquals("a", dtoList.get(0).remark);
+    }
+
+    private interface Import {
+        List<HeaderDto> run(String url) throws Exception;
+    }
+
+    private static List<HeaderDto> withServer(Import action) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        byte[] body = CSV.getBytes(StandardCharsets.UTF_8);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        try {
+            return action.run("http://127.0.0.1:" + server.getAddress().getPort() + "/a.csv");
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static void assertRows(List<HeaderDto> dtoList) {
+        assertEquals(2, dtoList.size());
+        assertEquals("a", dtoList.get(0).name);
+        assertEquals(Integer.valueOf(1), dtoList.get(0).quantity);
+        assertEquals("b", dtoList.get(1).name);
+        assertEquals(Integer.valueOf(2), dtoList.get(1).quantity);
+    }
+}
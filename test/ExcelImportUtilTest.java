@@ -0,0 +1,115 @@
+package com.lvyou.micro.utils.excel;
+
+import com.lvyou.micro.exception.ApiException;
+import io.swagger.annotations.ApiModelProperty;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * <p>
+ * 按sheet导入：.xls与.xlsx按相同的行、列规则解析，以空单元格开头的行不错列；转换失败时报告excel中的行号
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-10-08
+ */
+class ExcelImportUtilTest {
+
+    public static class SheetDto {
+        @ApiModelProperty("名称")
+        private String name;
+        @ApiModelProperty("数量")
+        private Integer quantity;
+        @ApiModelProperty("备注")
+        private String remark;
+
+        @Override
+        public String toString() {
+            return name + "|" + quantity + "|" + remark;
+        }
+    }
+
+    @Test
+    void readXlsBySheet() throws IOException {
+        File file = File.createTempFile("sheets", ".xls");
+        try {
+            try (Workbook workbook = new HSSFWorkbook(); OutputStream out = Files.newOutputStream(file.toPath())) {
+                writeSheet(workbook.createSheet("s1"), "a");
+                writeSheet(workbook.createSheet("s2"), "b");
+                workbook.write(out);
+            }
+            List<SheetDto> dtoList = new ArrayList<>();
+            ExcelImportUtil.readObjectsBySheet(file.getName(), file, SheetDto.class, 1, 2, 0, dtoList::add, ForkJoinPool.commonPool());
+
+            List<String> rows = new ArrayList<>();
+            dtoList.forEach(dto -> rows.add(dto.toString()));
+            assertEquals("[a|1|r1, |2|r2, b|1|r1, |2|r2]", rows.toString());
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+
+    @Test
+    void failFastReportsSheetRowNum() throws IOException {
+        File file = File.createTempFile("rows", ".xls");
+        try {
+            try (Workbook workbook = new HSSFWorkbook(); OutputStream out = Files.newOutputStream(file.toPath())) {
+                Sheet sheet = workbook.createSheet("s1");
+                writeSheet(sheet, "a");
+                // 第6行空行，第7行数量无法转换
+                Row bad = sheet.createRow(6);
+                bad.createCell(0).setCellValue("c");
+                bad.createCell(1).setCellValue("x");
+                workbook.write(out);
+            }
+            assertEquals("导入数据解析错误：第7行", readError(file, new ExcelImportOptions()));
+            assertEquals("导入数据解析错误：第7行", readError(file, new ExcelImportOptions().setConvertExecutor(ForkJoinPool.commonPool())));
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+
+    /**
+     * 转换失败信息中的行号部分
+     */
+    private static String readError(File file, ExcelImportOptions options) throws IOException {
+        try {
+            ExcelImportUtil.readObjects(file.getName(), file, SheetDto.class, 1, 2, 0, dto -> { }, options);
+        } catch (ApiException e) {
+            return e.getMessage().substring(0, e.getMessage().indexOf('（'));
+        }
+        return null;
+    }
+
+    /**
+     * 前2行为标题，第3行为表头，最后一行第一列为空
+     */
+    private static void writeSheet(Sheet sheet, String name) {
+        sheet.createRow(0).createCell(0).setCellValue("标题");
+        sheet.createRow(1).createCell(0).setCellValue("说明");
+        Row header = sheet.createRow(2);
+        header.createCell(0).setCellValue("名称");
+        header.createCell(1).setCellValue("数量");
+        header.createCell(2).setCellValue("备注");
+        Row first = sheet.createRow(3);
+        first.createCell(0).setCellValue(name);
+        first.createCell(1).setCellValue(1);
+        first.createCell(2).setCellValue("r1");
+        Row second = sheet.createRow(4);
+        second.createCell(1).setCellValue(2);
+        second.createCell(2).setCellValue("r2");
+    }
+}
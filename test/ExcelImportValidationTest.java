@@ -0,0 +1,63 @@
+package com.lvyou.micro.utils.excel;
+
+import com.lvyou.micro.exception.ApiException;
+import io.swagger.annotations.ApiModelProperty;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * <p>
+ * 导入校验：业务校验抛出的任何运行时异常都记为该行的错误，继续检查后面的行
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-10-08
+ */
+class ExcelImportValidationTest {
+
+    private static final String CSV = "名称,编码\nok,1\nnpe,2\nnumber,x\napi,3\nok2,4\n";
+
+    public static class ValidateDto {
+        @ApiModelProperty("名称")
+        private String name;
+        @ApiModelProperty("编码")
+        private String code;
+    }
+
+    @Test
+    void validatorExceptionsBecomeRowErrors() throws IOException {
+        File file = File.createTempFile("validate", ".csv");
+        try {
+            Files.write(file.toPath(), CSV.getBytes(StandardCharsets.UTF_8));
+            ExcelImportResult<ValidateDto> result = ExcelImportUtil.validateObjects(file.getName(), file, ValidateDto.class, 1, 2, 0,
+                    (row, reject) -> {
+                        if ("npe".equals(row.name)) {
+                            throw new NullPointerException();
+                        }
+                        Integer.parseInt(row.code);
+                        if ("api".equals(row.name)) {
+                            throw new ApiException("不允许导入");
+                        }
+                    }, 10, new ExcelImportOptions());
+
+            assertEquals(2, result.getValidRows().size());
+            assertEquals(3, result.getRejectedRowCount());
+            assertFalse(result.isTruncated());
+            assertEquals(3, result.getErrors().get(0).getRowNum());
+            assertEquals("NullPointerException", result.getErrors().get(0).getMessage());
+            assertEquals(4, result.getErrors().get(1).getRowNum());
+            assertEquals("For input string: \"x\"", result.getErrors().get(1).getMessage());
+            assertEquals(5, result.getErrors().get(2).getRowNum());
+            assertEquals("不允许导入", result.getErrors().get(2).getMessage());
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+}
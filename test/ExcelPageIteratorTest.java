@@ -0,0 +1,97 @@
+package com.lvyou.micro.utils.excel;
+
+import com.lvyou.micro.exception.ApiException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <p>
+ * 分页查询迭代器：逐页预取，close或查询出错后不再查询
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-10-08
+ */
+class ExcelPageIteratorTest {
+
+    @Test
+    void readAllPages() {
+        List<Integer> queried = new ArrayList<>();
+        List<Integer> values = new ArrayList<>();
+        try (ExcelPageIterator<Integer> pages = new ExcelPageIterator<>(pageNo -> {
+            queried.add(pageNo);
+            return pageNo <= 3 ? Arrays.asList(pageNo * 10, pageNo * 10 + 1) : Collections.emptyList();
+        }, Runnable::run)) {
+            pages.forEachRemaining(values::add);
+        }
+        assertEquals(Arrays.asList(10, 11, 20, 21, 30, 31), values);
+        assertEquals(Arrays.asList(1, 2, 3, 4), queried);
+    }
+
+    @Test
+    void closeCancelsPendingPrefetch() {
+        QueueExecutor executor = new QueueExecutor();
+        List<Integer> queried = new ArrayList<>();
+        ExcelPageIterator<Integer> pages = new ExcelPageIterator<>(pageNo -> {
+            queried.add(pageNo);
+            return Collections.singletonList(pageNo);
+        }, executor);
+        executor.runAll();
+        assertTrue(pages.hasNext());
+        assertEquals(1, pages.next().intValue());
+
+        // 第2页的预取已提交、尚未执行，提前结束后不再查询
+        pages.close();
+        executor.runAll();
+        assertEquals(Collections.singletonList(1), queried);
+        assertFalse(pages.hasNext());
+    }
+
+    @Test
+    void stopAfterQueryError() {
+        List<Integer> queried = new ArrayList<>();
+        ExcelPageIterator<Integer> pages = new ExcelPageIterator<>(pageNo -> {
+            queried.add(pageNo);
+            if (pageNo == 2) {
+                throw new ApiException("查询失败");
+            }
+            return Collections.singletonList(pageNo);
+        }, Runnable::run);
+        assertEquals(1, pages.next().intValue());
+        assertThrows(ApiException.class, pages::hasNext);
+        assertFalse(pages.hasNext());
+        assertEquals(Arrays.asList(1, 2), queried);
+    }
+
+    /**
+     * 提交的任务排队，由测试线程手动执行
+     */
+    private static class QueueExecutor implements Executor {
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+}
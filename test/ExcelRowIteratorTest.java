@@ -0,0 +1,62 @@
+package com.lvyou.micro.utils.excel;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <p>
+ * 导入数据迭代器：关闭或未关闭就丢弃时，阻塞在满队列上的后台线程都会停止
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-10-08
+ */
+class ExcelRowIteratorTest {
+
+    @Test
+    void closeStopsProducer() throws InterruptedException {
+        CountDownLatch stopped = new CountDownLatch(1);
+        ExcelRowIterator<Integer> iterator = endless(stopped);
+        int first = iterator.next();
+        assertEquals(0, first);
+        iterator.close();
+        assertTrue(stopped.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void abandonedIteratorStopsProducer() throws InterruptedException {
+        CountDownLatch stopped = new CountDownLatch(1);
+        readOneAndAbandon(stopped);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (stopped.getCount() > 0 && System.nanoTime() < deadline) {
+            System.gc();
+            stopped.await(100, TimeUnit.MILLISECONDS);
+        }
+        assertEquals(0L, stopped.getCount());
+    }
+
+    private static void readOneAndAbandon(CountDownLatch stopped) {
+        int first = endless(stopped).next();
+        assertEquals(0, first);
+    }
+
+    /**
+     * 不断产生数据直到被取消
+     */
+    private static ExcelRowIterator<Integer> endless(CountDownLatch stopped) {
+        return new ExcelRowIterator<>(1, sink -> {
+            try {
+                for (int i = 0; ; i++) {
+                    sink.accept(i);
+                }
+            } finally {
+                stopped.countDown();
+            }
+        });
+    }
+}
@@ -0,0 +1,82 @@
+package com.lvyou.micro.utils.excel;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * <p>
+ * 共享字符串表：内存中和写入临时文件时取值一致，关闭后删除临时文件
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-10-08
+ */
+class ExcelSharedStringsTest {
+
+    private static final int ROWS = 20000;
+
+    @Test
+    void readInMemory() throws Exception {
+        assertValues(ExcelSharedStrings.SPILL_THRESHOLD_CHARS);
+    }
+
+    @Test
+    void readSpilled() throws Exception {
+        assertValues(0);
+    }
+
+    private static void assertValues(int spillThresholdChars) throws Exception {
+        File file = File.createTempFile("sst", ".xlsx");
+        try {
+            List<String> expected = new ArrayList<>();
+            try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file.toPath())) {
+                Sheet sheet = workbook.createSheet();
+                for (int i = 0; i < ROWS; i++) {
+                    Row row = sheet.createRow(i);
+                    String value = i % 2 == 0 ? "编号" + i : "code-" + i;
+                    row.createCell(0).setCellValue(value);
+                    expected.add(value);
+                }
+                workbook.write(out);
+            }
+            int tempFiles = countSpillFiles();
+            try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+                SAXParserFactory factory = SAXParserFactory.newInstance();
+                factory.setNamespaceAware(true);
+                try (ExcelSharedStrings strings = ExcelSharedStrings.read(pkg, factory.newSAXParser().getXMLReader(), spillThresholdChars)) {
+                    assertEquals(tempFiles + (spillThresholdChars == 0 ? 1 : 0), countSpillFiles());
+                    ExcelSharedStrings.Lookup lookup = strings.newLookup();
+                    for (int i = 0; i < ROWS; i++) {
+                        assertEquals(expected.get(i), lookup.get(i));
+                    }
+                    assertSame(lookup.get(ROWS - 1), lookup.get(ROWS - 1));
+                    assertNull(lookup.get(ROWS));
+                    assertNull(lookup.get(-1));
+                }
+            }
+            assertEquals(tempFiles, countSpillFiles());
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+
+    private static int countSpillFiles() {
+        File[] files = new File(System.getProperty("java.io.tmpdir")).listFiles((dir, name) -> name.startsWith("excel-sst"));
+        return files == null ? 0 : files.length;
+    }
+}
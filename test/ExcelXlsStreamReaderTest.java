@@ -0,0 +1,53 @@
+package com.lvyou.micro.utils.excel;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * <p>
+ * .xls流式解析：公式单元格取缓存的计算结果，数值单元格保留原值
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-10-08
+ */
+class ExcelXlsStreamReaderTest {
+
+    @Test
+    void readCachedFormulaResults() throws IOException {
+        File file = File.createTempFile("formula", ".xls");
+        try {
+            try (Workbook workbook = new HSSFWorkbook(); OutputStream out = Files.newOutputStream(file.toPath())) {
+                Sheet sheet = workbook.createSheet();
+                Row row = sheet.createRow(0);
+                row.createCell(0).setCellValue(20);
+                row.createCell(1).setCellFormula("A1*2+1.5");
+                row.createCell(2).setCellFormula("A1>10");
+                row.createCell(3).setCellFormula("\"x\"&A1");
+                workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+                workbook.write(out);
+            }
+            List<List<Object>> rows = new ArrayList<>();
+            ExcelXlsStreamReader.read(file, new ExcelImportOptions().setSheetHeadRowNum(0), (sheetIndex, rowNum, row) -> rows.add(row));
+            assertEquals(1, rows.size());
+            assertEquals(Arrays.<Object>asList("20", "41.5", "TRUE", "x20"), ExcelCellReader.readStrings(rows.get(0)));
+            // 数值保留原值，不经过文本
+            assertEquals(41.5, ((Number) rows.get(0).get(1)).doubleValue());
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+}
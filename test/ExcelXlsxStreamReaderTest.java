@@ -0,0 +1,135 @@
+package com.lvyou.micro.utils.excel;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * <p>
+ * .xlsx流式解析：数值、日期单元格保留原值，按字段类型直接转换；文本与Cell读取的结果一致；
+ * 省略r属性的单元格在跳过的列之后也按实际列对齐
+ * </p>
+ *
+ * @author kun.tan
+ * @since 2022-10-08
+ */
+class ExcelXlsxStreamReaderTest {
+
+    @Test
+    void readTypedValues() throws IOException {
+        File file = File.createTempFile("typed", ".xlsx");
+        try {
+            try (Workbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file.toPath())) {
+                CellStyle dateStyle = workbook.createCellStyle();
+                dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+                Sheet sheet = workbook.createSheet();
+                Row row = sheet.createRow(0);
+                row.createCell(0).setCellValue(12.5);
+                row.createCell(1).setCellValue(LocalDateTime.of(2022, 10, 8, 0, 0));
+                row.getCell(1).setCellStyle(dateStyle);
+                row.createCell(2).setCellValue(true);
+                row.createCell(3).setCellValue("abc");
+                row.createCell(4).setCellFormula("A1*2");
+                workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+                workbook.write(out);
+            }
+            List<List<Object>> rows = new ArrayList<>();
+            ExcelXlsxStreamReader.read(file, new ExcelImportOptions().setSheetHeadRowNum(0), (sheetIndex, rowNum, row) -> rows.add(row));
+
+            assertEquals(1, rows.size());
+            List<Object> row = rows.get(0);
+            assertEquals(Arrays.<Object>asList("12.5", "2022-10-08", "TRUE", "abc", "25"), ExcelCellReader.readStrings(row));
+            assertEquals(new BigDecimal("12.5"), ExcelCellReader.forType(BigDecimal.class).convert(row.get(0)));
+            assertEquals(LocalDate.of(2022, 10, 8), ExcelCellReader.forType(LocalDate.class).convert(row.get(1)));
+            assertEquals(Boolean.TRUE, ExcelCellReader.forType(Boolean.class).convert(row.get(2)));
+            assertEquals(25, ExcelCellReader.forType(Integer.class).convert(row.get(4)));
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    @Test
+    void resolveOmittedCellReferenceAfterSkippedColumn() throws IOException {
+        File source = File.createTempFile("refs", ".xlsx");
+        File file = File.createTempFile("norefs", ".xlsx");
+        try {
+            try (Workbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(source.toPath())) {
+                Row row = workbook.createSheet().createRow(0);
+                row.createCell(0).setCellValue("a");
+                row.createCell(1).setCellValue(2);
+                row.createCell(2).setCellValue("c");
+                row.createCell(3).setCellValue(4);
+                workbook.write(out);
+            }
+            // C1、D1省略r属性，列序号按上一个单元格推算
+            removeCellReferences(source, file, "C1", "D1");
+            List<List<Object>> rows = new ArrayList<>();
+            ExcelXlsxStreamReader.read(file, new ExcelImportOptions().setSheetHeadRowNum(0), new ExcelRowListener() {
+                @Override
+                public void onRow(int sheetIndex, int rowNum, List<Object> row) {
+                    rows.add(row);
+                }
+
+                @Override
+                public boolean isColumnRequired(int columnIndex) {
+                    return columnIndex != 1;
+                }
+            });
+
+            assertEquals(1, rows.size());
+            assertEquals(Arrays.<Object>asList("a", "", "c", "4"), ExcelCellReader.readStrings(rows.get(0)));
+        } finally {
+            Files.deleteIfExists(source.toPath());
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    /**
+     * 复制xlsx，去掉sheet中指定单元格的r属性
+     */
+    private static void removeCellReferences(File source, File target, String... cellReferences) throws IOException {
+        try (ZipFile zip = new ZipFile(source); ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(target.toPath()))) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                byte[] content;
+                try (InputStream in = zip.getInputStream(entry)) {
+                    content = IOUtils.toByteArray(in);
+                }
+                if (entry.getName().startsWith("xl/worksheets/")) {
+                    String xml = new String(content, StandardCharsets.UTF_8);
+                    for (String cellReference : cellReferences) {
+                        xml = xml.replace(" r=\"" + cellReference + "\"", "");
+                    }
+                    content = xml.getBytes(StandardCharsets.UTF_8);
+                }
+                out.putNextEntry(new ZipEntry(entry.getName()));
+                out.write(content);
+                out.closeEntry();
+            }
+        }
+    }
+}